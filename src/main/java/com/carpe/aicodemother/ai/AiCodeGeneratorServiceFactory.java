@@ -1,6 +1,7 @@
 package com.carpe.aicodemother.ai;
 
 import com.carpe.aicodemother.ai.guardrail.PromptSafetyInputGuardrail;
+import com.carpe.aicodemother.ai.memory.ChatMemoryHydrator;
 import com.carpe.aicodemother.exception.BusinessException;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.model.enums.CodeGenTypeEnum;
@@ -9,15 +10,19 @@ import com.carpe.aicodemother.ai.tools.ToolManager;
 import com.carpe.aicodemother.utils.SpringContextUtil;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
@@ -37,7 +42,7 @@ public class AiCodeGeneratorServiceFactory {
     private ChatModel chatModel;
 
     @Resource
-    private RedisChatMemoryStore redisChatMemoryStore;
+    private ChatMemoryStore chatMemoryStore;
 
     @Resource
     private ChatHistoryService chatHistoryService;
@@ -45,6 +50,20 @@ public class AiCodeGeneratorServiceFactory {
     @Resource
     private ToolManager toolManager;
 
+    @Resource
+    private ChatMemoryHydrator chatMemoryHydrator;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 缓存的最大实例数
+     * 对话消息保存在 ChatMemoryStore，本地近缓存和增量快照按消息大小限制（chat-memory.*.max-bytes），
+     * 服务实例本身只持有模型、工具等固定开销，按数量限制即可
+     */
+    @Value("${ai.service-cache.max-size:1000}")
+    private long maxSize;
+
     /**
      * AI 服务实例缓存
      * 作用: 缓存不同 appId 和代码生成类型组合对应的 AI 服务对象，避免重复创建，提高性能
@@ -53,22 +72,31 @@ public class AiCodeGeneratorServiceFactory {
      * 例如: "123_HTML", "123_VUE_PROJECT", "456_MULTI_FILE"
      * <p>
      * 缓存策略:
-     * - 最大缓存 1000 个实例 (避免无限增长导致内存溢出)
+     * - 最多缓存 maxSize 个实例 (避免无限增长导致内存溢出)
      * - 写入后 30 分钟过期 (保证服务不会长期占用内存)
      * - 最后一次访问后 10 分钟过期 (清理冷门、不再活跃的实例)
+     * - 命中率、淘汰数、加载耗时等统计注册到 Micrometer
      */
-    private final Cache<String, AiCodeGeneratorService> serviceCache = Caffeine.newBuilder()
-            // 缓存最多存储 1000 个 AI 服务实例
-            .maximumSize(1000)
-            // 从写入时间算起, 30 分钟后过期 (即使频繁访问, 也会在写入 30 分钟后被清理)
-            .expireAfterWrite(Duration.ofMinutes(30))
-            // 从最后一次访问时间算起, 10 分钟后过期 (如果 10 分钟没人用, 就清理掉)
-            .expireAfterAccess(Duration.ofMinutes(10))
-            // 监听器: 当缓存里的实例被移除时, 打印日志, 记录移除的缓存键和原因
-            .removalListener((key, value, cause) -> {
-                log.debug("AI 服务实例被移除, 缓存键: {}, 原因: {}", key, cause);
-            })
-            .build();
+    private Cache<String, AiCodeGeneratorService> serviceCache;
+
+    @PostConstruct
+    public void initServiceCache() {
+        serviceCache = Caffeine.newBuilder()
+                // 最多缓存的实例数
+                .maximumSize(maxSize)
+                // 从写入时间算起, 30 分钟后过期 (即使频繁访问, 也会在写入 30 分钟后被清理)
+                .expireAfterWrite(Duration.ofMinutes(30))
+                // 从最后一次访问时间算起, 10 分钟后过期 (如果 10 分钟没人用, 就清理掉)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                // 记录统计信息，供 Micrometer 采集
+                .recordStats()
+                // 监听器: 当缓存里的实例被移除时, 打印日志, 记录移除的缓存键和原因
+                .removalListener((key, value, cause) -> {
+                    log.debug("AI 服务实例被移除, 缓存键: {}, 原因: {}", key, cause);
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, serviceCache, "ai_service_cache");
+    }
 
     /**
      * 根据 appId 获取 AI 服务实例（兼容老版本接口）
@@ -122,12 +150,17 @@ public class AiCodeGeneratorServiceFactory {
         MessageWindowChatMemory chatMemory = MessageWindowChatMemory
                 .builder()
                 .id(appId)                            // 记忆与 appId 绑定，保证不同应用的对话不混淆
-                .chatMemoryStore(redisChatMemoryStore) // 使用 Redis 存储记忆，保证数据持久化
+                .chatMemoryStore(chatMemoryStore)       // 使用 Redis 存储记忆（带本地近缓存），保证数据持久化
                 .maxMessages(100)                      // 最多保存最近 100 条消息，控制内存占用
                 .build();
 
-        // 从数据库加载历史对话到记忆中
-        chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
+        // Redis 中的记忆有效时直接复用，冷启动时才从数据库加载历史对话到记忆中
+        if (chatMemoryHydrator.isWarm(appId, chatMemory)) {
+            log.info("appId: {} 复用 Redis 中的对话记忆", appId);
+        } else {
+            chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
+            chatMemoryHydrator.markHydrated(appId);
+        }
 
         // 根据代码生成类型选择不同的模型配置
         return switch (codeGenType) {
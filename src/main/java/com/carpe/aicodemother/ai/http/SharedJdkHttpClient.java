@@ -0,0 +1,276 @@
+package com.carpe.aicodemother.ai.http;
+
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.exception.TimeoutException;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于共享 JDK HttpClient 的 LangChain4j HTTP 客户端
+ * 连接池、TLS 会话、HTTP/2 连接和执行器都由共享的 {@link java.net.http.HttpClient} 持有，
+ * 本类只保存每个模型自己的读超时，请求之间没有共享的可变状态
+ * <p>
+ * 读超时分两段生效：请求级超时覆盖到收到响应头为止；流式响应体使用空闲计时，
+ * 超过读超时没有收到任何数据时取消订阅并以超时结束，避免卡住的 SSE 流永远不返回
+ */
+@Slf4j
+public class SharedJdkHttpClient implements HttpClient {
+
+    /**
+     * 流式响应空闲检查的调度线程（所有客户端共享，只做计时，不执行读取）
+     */
+    private static final ScheduledExecutorService IDLE_TIMER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("model-http-idle-timer").daemon(true).factory());
+
+    /**
+     * 读取流式响应的线程：解析会阻塞到整个流结束，不能放在 sendAsync 的回调线程上
+     * （共享 HttpClient 的执行器或 JDK 投递回调所用的公共线程池，都是有限大小的线程池），
+     * 否则并发的流会占满这些线程，其他流得不到读取，一起卡住直到空闲超时
+     */
+    private static final ExecutorService STREAM_READER = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("model-sse-reader-", 0).factory());
+
+    private final java.net.http.HttpClient delegate;
+
+    private final Duration readTimeout;
+
+    public SharedJdkHttpClient(java.net.http.HttpClient delegate, Duration readTimeout) {
+        this.delegate = delegate;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) throws HttpException {
+        try {
+            HttpResponse<String> response = delegate.send(toJdkRequest(request),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (!isSuccessful(response)) {
+                throw new HttpException(response.statusCode(), response.body());
+            }
+            return toSuccessfulResponse(response, response.body());
+        } catch (HttpTimeoutException e) {
+            throw new TimeoutException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        // 在独立的虚拟线程上读取流，既不占用调用方线程，也不占用共享 HttpClient 的执行器
+        HttpResponse.BodyHandler<InputStream> bodyHandler = readTimeout == null
+                ? HttpResponse.BodyHandlers.ofInputStream()
+                : responseInfo -> new IdleTimeoutBodySubscriber(readTimeout);
+        delegate.sendAsync(toJdkRequest(request), bodyHandler)
+                .thenAcceptAsync(response -> {
+                    if (!isSuccessful(response)) {
+                        notifyError(listener, new HttpException(response.statusCode(), readBody(response)));
+                        return;
+                    }
+                    try {
+                        listener.onOpen(toSuccessfulResponse(response, null));
+                    } catch (Exception e) {
+                        log.warn("SSE onOpen 回调异常: {}", e.getMessage());
+                    }
+                    try (InputStream inputStream = response.body()) {
+                        // 解析器自行捕获读取异常并回调 onError，这里把空闲超时转换为 TimeoutException
+                        parser.parse(inputStream, new ServerSentEventListener() {
+                            @Override
+                            public void onEvent(ServerSentEvent event) {
+                                listener.onEvent(event);
+                            }
+
+                            @Override
+                            public void onError(Throwable throwable) {
+                                listener.onError(toListenerError(throwable));
+                            }
+                        });
+                        listener.onClose();
+                    } catch (Exception e) {
+                        notifyError(listener, toListenerError(e));
+                    }
+                }, STREAM_READER)
+                .exceptionally(throwable -> {
+                    notifyError(listener, toListenerError(throwable));
+                    return null;
+                });
+    }
+
+    /**
+     * 转换为回调给监听器的异常：去掉 CompletionException 包装，超时统一为 TimeoutException
+     */
+    private static Throwable toListenerError(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException) {
+                return new TimeoutException(t);
+            }
+        }
+        return cause;
+    }
+
+    private java.net.http.HttpRequest toJdkRequest(HttpRequest request) {
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder()
+                .uri(URI.create(request.url()));
+        if (readTimeout != null) {
+            builder.timeout(readTimeout);
+        }
+        request.headers().forEach((name, values) -> {
+            if (values != null) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        java.net.http.HttpRequest.BodyPublisher bodyPublisher = request.body() == null
+                ? java.net.http.HttpRequest.BodyPublishers.noBody()
+                : java.net.http.HttpRequest.BodyPublishers.ofString(request.body(), StandardCharsets.UTF_8);
+        builder.method(request.method().name(), bodyPublisher);
+        return builder.build();
+    }
+
+    private static boolean isSuccessful(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    private static SuccessfulHttpResponse toSuccessfulResponse(HttpResponse<?> response, String body) {
+        return SuccessfulHttpResponse.builder()
+                .statusCode(response.statusCode())
+                .headers(response.headers().map())
+                .body(body)
+                .build();
+    }
+
+    private static String readBody(HttpResponse<InputStream> response) {
+        try (InputStream inputStream = response.body()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "读取响应体失败: " + e.getMessage();
+        }
+    }
+
+    private static void notifyError(ServerSentEventListener listener, Throwable error) {
+        try {
+            listener.onError(error);
+        } catch (Exception e) {
+            log.warn("SSE onError 回调异常: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 带空闲超时的响应体订阅者
+     * 每收到一批数据刷新最后活动时间；计时到期时若期间没有数据则取消订阅，并让读取方收到超时异常。
+     * 计时器只在到期时检查一次并按剩余时间重新调度，不会为每批数据重建定时任务
+     */
+    static final class IdleTimeoutBodySubscriber implements HttpResponse.BodySubscriber<InputStream> {
+
+        private final HttpResponse.BodySubscriber<InputStream> delegate = HttpResponse.BodySubscribers.ofInputStream();
+
+        private final long idleTimeoutNanos;
+
+        private volatile long lastActivityNanos;
+
+        private Flow.Subscription subscription;
+
+        /**
+         * 是否已结束（正常结束、出错或超时），通过 synchronized(this) 保证只向下游发出一次终止信号
+         */
+        private boolean done;
+
+        IdleTimeoutBodySubscriber(Duration idleTimeout) {
+            this.idleTimeoutNanos = idleTimeout.toNanos();
+        }
+
+        @Override
+        public CompletionStage<InputStream> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (this) {
+                this.subscription = subscription;
+            }
+            lastActivityNanos = System.nanoTime();
+            delegate.onSubscribe(subscription);
+            scheduleCheck(idleTimeoutNanos);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            lastActivityNanos = System.nanoTime();
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                delegate.onNext(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                delegate.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                delegate.onComplete();
+            }
+        }
+
+        private void scheduleCheck(long delayNanos) {
+            IDLE_TIMER.schedule(this::checkIdle, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void checkIdle() {
+            long idleNanos = System.nanoTime() - lastActivityNanos;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                if (idleNanos < idleTimeoutNanos) {
+                    scheduleCheck(idleTimeoutNanos - idleNanos);
+                    return;
+                }
+                done = true;
+                subscription.cancel();
+                delegate.onError(new HttpTimeoutException("响应流超过 " + Duration.ofNanos(idleTimeoutNanos) + " 没有收到数据"));
+            }
+        }
+    }
+}
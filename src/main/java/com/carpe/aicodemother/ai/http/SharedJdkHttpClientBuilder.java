@@ -0,0 +1,56 @@
+package com.carpe.aicodemother.ai.http;
+
+import dev.langchain4j.http.client.HttpClientBuilder;
+
+import java.time.Duration;
+
+/**
+ * 共享 JDK HttpClient 的构建器
+ * 每个模型使用一个新的构建器实例（模型构建时会写入超时配置），但都指向同一个共享的 HttpClient。
+ * 连接超时属于共享客户端的配置，无法按模型单独设置，与共享客户端不一致时拒绝构建；读超时按请求设置
+ */
+public class SharedJdkHttpClientBuilder implements HttpClientBuilder {
+
+    private final java.net.http.HttpClient sharedHttpClient;
+
+    private Duration connectTimeout;
+
+    private Duration readTimeout;
+
+    public SharedJdkHttpClientBuilder(java.net.http.HttpClient sharedHttpClient) {
+        this.sharedHttpClient = sharedHttpClient;
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return connectTimeout;
+    }
+
+    @Override
+    public SharedJdkHttpClientBuilder connectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public SharedJdkHttpClientBuilder readTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    @Override
+    public SharedJdkHttpClient build() {
+        Duration sharedConnectTimeout = sharedHttpClient.connectTimeout().orElse(null);
+        if (connectTimeout != null && !connectTimeout.equals(sharedConnectTimeout)) {
+            throw new IllegalStateException(String.format(
+                    "模型连接超时 %s 与共享 HTTP 客户端的连接超时 %s 不一致，请通过 langchain4j.http-client.connect-timeout-seconds 统一配置",
+                    connectTimeout, sharedConnectTimeout));
+        }
+        return new SharedJdkHttpClient(sharedHttpClient, readTimeout);
+    }
+}
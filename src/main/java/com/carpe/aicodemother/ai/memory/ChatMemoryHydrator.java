@@ -0,0 +1,100 @@
+package com.carpe.aicodemother.ai.memory;
+
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 对话记忆预热判断
+ * AI 服务实例被 Caffeine 淘汰后重建时，Redis 中的对话记忆通常仍然有效，
+ * 此时无需清空后再从 MySQL 重新加载。通过一个带版本号的标记记录"该 appId 的记忆已从数据库完整加载"：
+ * <p>
+ * - 标记存在、版本一致且 Redis 中记忆非空 -> 直接信任 Redis
+ * - 否则（冷启动、记忆过期、加载格式升级、历史被删除） -> 回源 MySQL 重新加载并写入标记
+ */
+@Component
+@Slf4j
+public class ChatMemoryHydrator {
+
+    /**
+     * 标记版本，加载逻辑（条数、消息转换方式等）变化时递增，使旧记忆全部回源重建
+     */
+    private static final String MARKER_VERSION = "2";
+
+    private static final String MARKER_KEY_PREFIX = "chat_memory:hydrated:";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private ChatMemoryStore chatMemoryStore;
+
+    /**
+     * 标记过期时间（秒），与对话记忆的 TTL 保持一致
+     */
+    @Value("${spring.data.redis.ttl:3600}")
+    private long ttlSeconds;
+
+    /**
+     * 判断 Redis 中的对话记忆是否可以直接使用
+     *
+     * @param appId      应用 ID
+     * @param chatMemory 对话记忆
+     * @return true 表示记忆有效，无需回源数据库
+     */
+    public boolean isWarm(long appId, MessageWindowChatMemory chatMemory) {
+        try {
+            String markerKey = MARKER_KEY_PREFIX + appId;
+            String marker = stringRedisTemplate.opsForValue().get(markerKey);
+            if (!MARKER_VERSION.equals(marker) || chatMemory.messages().isEmpty()) {
+                return false;
+            }
+            // 记忆仍在使用，续期标记
+            if (ttlSeconds > 0) {
+                stringRedisTemplate.expire(markerKey, Duration.ofSeconds(ttlSeconds));
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("读取对话记忆标记失败，回源数据库, appId: {}, 错误: {}", appId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 记录对话记忆已从数据库加载完成
+     *
+     * @param appId 应用 ID
+     */
+    public void markHydrated(long appId) {
+        try {
+            String markerKey = MARKER_KEY_PREFIX + appId;
+            if (ttlSeconds > 0) {
+                stringRedisTemplate.opsForValue().set(markerKey, MARKER_VERSION, Duration.ofSeconds(ttlSeconds));
+            } else {
+                stringRedisTemplate.opsForValue().set(markerKey, MARKER_VERSION);
+            }
+        } catch (Exception e) {
+            log.warn("写入对话记忆标记失败, appId: {}, 错误: {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 对话历史被删除时，同时删除标记和 Redis 中的对话记忆，避免继续使用过期记忆
+     *
+     * @param appId 应用 ID
+     */
+    public void invalidate(long appId) {
+        try {
+            stringRedisTemplate.delete(MARKER_KEY_PREFIX + appId);
+            chatMemoryStore.deleteMessages(appId);
+        } catch (Exception e) {
+            log.warn("清除对话记忆失败, appId: {}, 错误: {}", appId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.carpe.aicodemother.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.image.Image;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.data.message.ImageContent;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.List;
+
+/**
+ * 估算对话消息在堆中占用的字节数，供本地缓存按内存大小淘汰
+ * 只统计文本（按每个字符 2 字节）和每条消息的固定开销；工具结果中带有完整文件内容时，这部分占绝大多数
+ */
+final class ChatMessageSizeEstimator {
+
+    /**
+     * 每条消息的对象头、字段和列表引用等固定开销
+     */
+    private static final int MESSAGE_OVERHEAD_BYTES = 64;
+
+    private ChatMessageSizeEstimator() {
+    }
+
+    /**
+     * 估算消息列表占用的字节数，结果不超过 Integer.MAX_VALUE（Caffeine 的权重为 int）
+     */
+    static int estimateBytes(List<ChatMessage> messages) {
+        long bytes = 0;
+        for (ChatMessage message : messages) {
+            bytes += MESSAGE_OVERHEAD_BYTES + 2L * textLength(message);
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long textLength(ChatMessage message) {
+        if (message instanceof ToolExecutionResultMessage toolResult) {
+            return length(toolResult.text()) + length(toolResult.toolName()) + length(toolResult.id());
+        }
+        if (message instanceof AiMessage aiMessage) {
+            long length = length(aiMessage.text());
+            if (aiMessage.toolExecutionRequests() != null) {
+                for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                    length += length(request.name()) + length(request.arguments()) + length(request.id());
+                }
+            }
+            return length;
+        }
+        if (message instanceof UserMessage userMessage) {
+            long length = 0;
+            for (Content content : userMessage.contents()) {
+                if (content instanceof TextContent textContent) {
+                    length += length(textContent.text());
+                } else if (content instanceof ImageContent imageContent) {
+                    Image image = imageContent.image();
+                    length += length(image.base64Data()) + (image.url() != null ? image.url().toString().length() : 0);
+                }
+            }
+            return length;
+        }
+        if (message instanceof SystemMessage systemMessage) {
+            return length(systemMessage.text());
+        }
+        return 0;
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+}
@@ -0,0 +1,118 @@
+package com.carpe.aicodemother.ai.memory;
+
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 带本地近缓存的对话记忆存储（装饰器）
+ * VUE_PROJECT 工具调用循环中每次读取对话记忆都会从 Redis 读出并反序列化整段历史，
+ * 这里在进程内按 memoryId 保存一份副本：
+ * <p>
+ * - 读：优先命中本地副本，未命中时才读取被装饰的存储
+ * - 写：先写穿到被装饰的存储，再更新本地副本
+ * - 多节点：每次写入后广播失效消息，其他节点收到后丢弃本地副本，下次读取时回源
+ * - 容量：按消息文本估算的字节数限制（工具结果中常带有完整文件内容，单个 memoryId 的大小差异很大）
+ */
+@Slf4j
+public class NearCacheChatMemoryStore implements ChatMemoryStore {
+
+    private static final String MESSAGE_SEPARATOR = ":";
+
+    /**
+     * 被装饰的存储（如 RedisListChatMemoryStore）
+     */
+    private final ChatMemoryStore delegate;
+
+    /**
+     * 失效消息发布方式，消息格式为 "节点 ID:memoryId"
+     */
+    private final Consumer<String> invalidationPublisher;
+
+    /**
+     * 当前节点 ID，用于忽略自己发出的失效消息
+     */
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    private final Cache<String, List<ChatMessage>> localCache;
+
+    /**
+     * @param delegate              被装饰的存储
+     * @param invalidationPublisher 失效消息发布方式
+     * @param maximumWeightBytes    本地副本的总大小上限（字节，按消息文本估算）
+     * @param expireAfterAccess     本地副本最后一次访问后的过期时间
+     */
+    public NearCacheChatMemoryStore(ChatMemoryStore delegate, Consumer<String> invalidationPublisher,
+                                    long maximumWeightBytes, Duration expireAfterAccess) {
+        this.delegate = delegate;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localCache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeightBytes)
+                .weigher((String key, List<ChatMessage> messages) -> ChatMessageSizeEstimator.estimateBytes(messages))
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        return localCache.get(toKey(memoryId), key -> List.copyOf(delegate.getMessages(memoryId)));
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        String key = toKey(memoryId);
+        try {
+            delegate.updateMessages(memoryId, messages);
+        } catch (RuntimeException e) {
+            // 写入失败时本地副本可能已与远端不一致，直接丢弃
+            localCache.invalidate(key);
+            throw e;
+        }
+        localCache.put(key, List.copyOf(messages));
+        publishInvalidation(key);
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        String key = toKey(memoryId);
+        localCache.invalidate(key);
+        delegate.deleteMessages(memoryId);
+        publishInvalidation(key);
+    }
+
+    /**
+     * 处理其他节点广播的失效消息
+     *
+     * @param message 失效消息（"节点 ID:memoryId"）
+     */
+    public void onInvalidation(String message) {
+        int index = message.indexOf(MESSAGE_SEPARATOR);
+        if (index < 0) {
+            return;
+        }
+        // 自己发出的消息无需处理，本地副本已是最新
+        if (nodeId.equals(message.substring(0, index))) {
+            return;
+        }
+        localCache.invalidate(message.substring(index + 1));
+    }
+
+    private void publishInvalidation(String key) {
+        try {
+            invalidationPublisher.accept(nodeId + MESSAGE_SEPARATOR + key);
+        } catch (Exception e) {
+            log.warn("广播对话记忆失效消息失败, memoryId: {}, 错误: {}", key, e.getMessage());
+        }
+    }
+
+    private static String toKey(Object memoryId) {
+        return String.valueOf(memoryId);
+    }
+}
@@ -0,0 +1,238 @@
+package com.carpe.aicodemother.ai.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+import redis.clients.jedis.JedisPooled;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基于 Redis List 的增量对话记忆存储
+ * RedisChatMemoryStore 每次更新都把整段消息序列化后整体覆盖写入，工具结果中带有完整文件内容时单次写入可达数百 KB。
+ * 这里每条消息作为 List 的一个元素保存，更新时与上一次读写的快照比较：
+ * <p>
+ * - 只追加新增的消息（RPUSH）
+ * - 窗口淘汰的旧消息在服务端用 LTRIM 裁掉（保留开头的系统消息）
+ * - 通过版本号判断 Redis 中的数据仍与本地快照一致，不一致（其他节点写入、快照过期）时退化为整体重写
+ */
+@Slf4j
+public class RedisListChatMemoryStore implements ChatMemoryStore {
+
+    /**
+     * 读取脚本：原子地返回版本号和全部消息
+     */
+    private static final String READ_SCRIPT = """
+            local version = redis.call('GET', KEYS[2]) or ''
+            return {version, redis.call('LRANGE', KEYS[1], 0, -1)}
+            """;
+
+    /**
+     * 更新脚本
+     * ARGV: 期望版本号, 是否整体重写(1/0), 保留的开头条数, 裁掉的条数, 过期秒数, 追加的消息...
+     * 版本号不一致时返回 -1，成功时返回新版本号
+     */
+    private static final String UPDATE_SCRIPT = """
+            local rewrite = ARGV[2] == '1'
+            if not rewrite then
+                local version = redis.call('GET', KEYS[2]) or ''
+                if version ~= ARGV[1] then
+                    return -1
+                end
+                local keep = tonumber(ARGV[3])
+                local removed = tonumber(ARGV[4])
+                if removed > 0 then
+                    if keep == 0 then
+                        redis.call('LTRIM', KEYS[1], removed, -1)
+                    else
+                        local head = redis.call('LRANGE', KEYS[1], 0, keep - 1)
+                        redis.call('LTRIM', KEYS[1], keep + removed, -1)
+                        for i = #head, 1, -1 do
+                            redis.call('LPUSH', KEYS[1], head[i])
+                        end
+                    end
+                end
+            else
+                redis.call('DEL', KEYS[1])
+            end
+            if #ARGV > 5 then
+                redis.call('RPUSH', KEYS[1], unpack(ARGV, 6))
+            end
+            local newVersion = redis.call('INCR', KEYS[2])
+            local ttl = tonumber(ARGV[5])
+            if ttl > 0 then
+                redis.call('EXPIRE', KEYS[1], ttl)
+                redis.call('EXPIRE', KEYS[2], ttl)
+            end
+            return newVersion
+            """;
+
+    private final JedisPooled client;
+
+    private final String keyPrefix;
+
+    /**
+     * 过期时间（秒），小于等于 0 表示不过期
+     */
+    private final long ttlSeconds;
+
+    /**
+     * 每个 memoryId 最近一次读写后 Redis 中的内容快照，用于计算增量
+     * 快照直接引用消息对象，不额外保存序列化结果；按消息文本估算的字节数限制总大小
+     */
+    private final Cache<String, Snapshot> snapshots;
+
+    /**
+     * @param client                 Redis 客户端
+     * @param keyPrefix              键前缀
+     * @param ttlSeconds             过期时间（秒），小于等于 0 表示不过期
+     * @param snapshotMaxWeightBytes 快照的总大小上限（字节，按消息文本估算）
+     */
+    public RedisListChatMemoryStore(JedisPooled client, String keyPrefix, long ttlSeconds, long snapshotMaxWeightBytes) {
+        this.client = client;
+        this.keyPrefix = keyPrefix;
+        this.ttlSeconds = ttlSeconds;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumWeight(snapshotMaxWeightBytes)
+                .weigher((String key, Snapshot snapshot) -> ChatMessageSizeEstimator.estimateBytes(snapshot.messages()))
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        String memoryKey = toMemoryKey(memoryId);
+        List<?> result = (List<?>) client.eval(READ_SCRIPT, List.of(toListKey(memoryKey), toVersionKey(memoryKey)), List.of());
+        String version = (String) result.get(0);
+        List<?> entries = (List<?>) result.get(1);
+        List<ChatMessage> messages = new ArrayList<>(entries.size());
+        for (Object entry : entries) {
+            messages.add(ChatMessageDeserializer.messageFromJson((String) entry));
+        }
+        snapshots.put(memoryKey, new Snapshot(version, List.copyOf(messages)));
+        return messages;
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        String memoryKey = toMemoryKey(memoryId);
+        List<ChatMessage> newMessages = List.copyOf(messages);
+        Snapshot snapshot = snapshots.getIfPresent(memoryKey);
+        long newVersion = -1;
+        if (snapshot != null && !snapshot.version().isEmpty()) {
+            Delta delta = computeDelta(snapshot.messages(), newMessages);
+            newVersion = executeUpdate(memoryKey, snapshot.version(), false, delta.keep(), delta.removed(),
+                    newMessages.subList(delta.appendFrom(), newMessages.size()));
+            if (newVersion < 0) {
+                log.debug("对话记忆版本不一致，整体重写, memoryId: {}", memoryKey);
+            }
+        }
+        if (newVersion < 0) {
+            newVersion = executeUpdate(memoryKey, "", true, 0, 0, newMessages);
+        }
+        snapshots.put(memoryKey, new Snapshot(String.valueOf(newVersion), newMessages));
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        String memoryKey = toMemoryKey(memoryId);
+        snapshots.invalidate(memoryKey);
+        client.del(toListKey(memoryKey), toVersionKey(memoryKey));
+    }
+
+    private long executeUpdate(String memoryKey, String expectedVersion, boolean rewrite, int keep, int removed,
+                               List<ChatMessage> appended) {
+        List<String> args = new ArrayList<>(appended.size() + 5);
+        args.add(expectedVersion);
+        args.add(rewrite ? "1" : "0");
+        args.add(String.valueOf(keep));
+        args.add(String.valueOf(removed));
+        args.add(String.valueOf(ttlSeconds));
+        for (ChatMessage message : appended) {
+            args.add(ChatMessageSerializer.messageToJson(message));
+        }
+        Object result = client.eval(UPDATE_SCRIPT, List.of(toListKey(memoryKey), toVersionKey(memoryKey)), args);
+        return ((Number) result).longValue();
+    }
+
+    /**
+     * 计算从旧消息列表到新消息列表的增量
+     * 表示为"保留公共前缀，随后连续删除若干条，再在末尾追加若干条"（即窗口淘汰 + 新消息）；
+     * 其他变化（如系统消息被替换）会退化为删除前缀之后的全部旧消息再追加
+     *
+     * @param oldMessages 旧消息列表
+     * @param newMessages 新消息列表
+     * @return 增量
+     */
+    static Delta computeDelta(List<ChatMessage> oldMessages, List<ChatMessage> newMessages) {
+        int oldSize = oldMessages.size();
+        int newSize = newMessages.size();
+        // 公共前缀长度（通常为 0 或开头的系统消息）
+        int keep = 0;
+        while (keep < oldSize && keep < newSize && Objects.equals(oldMessages.get(keep), newMessages.get(keep))) {
+            keep++;
+        }
+        if (keep == oldSize) {
+            return new Delta(keep, 0, keep);
+        }
+        // 在前缀之后删除 removed 条，剩余部分必须与新列表对应位置一致
+        for (int removed = 1; keep + removed <= oldSize; removed++) {
+            int remaining = oldSize - keep - removed;
+            if (keep + remaining > newSize) {
+                continue;
+            }
+            if (regionMatches(oldMessages, keep + removed, newMessages, keep, remaining)) {
+                return new Delta(keep, removed, keep + remaining);
+            }
+        }
+        // 不会到达：removed 取到 oldSize - keep 时剩余部分为空，必然匹配
+        return new Delta(keep, oldSize - keep, keep);
+    }
+
+    private static boolean regionMatches(List<ChatMessage> source, int sourceFrom,
+                                         List<ChatMessage> target, int targetFrom, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!Objects.equals(source.get(sourceFrom + i), target.get(targetFrom + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String toMemoryKey(Object memoryId) {
+        if (memoryId == null || memoryId.toString().isBlank()) {
+            throw new IllegalArgumentException("memoryId cannot be null or empty");
+        }
+        return memoryId.toString();
+    }
+
+    private String toListKey(String memoryKey) {
+        return keyPrefix + memoryKey;
+    }
+
+    private String toVersionKey(String memoryKey) {
+        return keyPrefix + memoryKey + ":version";
+    }
+
+    /**
+     * Redis 中内容的快照
+     *
+     * @param version  版本号，空字符串表示未知
+     * @param messages 消息列表
+     */
+    private record Snapshot(String version, List<ChatMessage> messages) {
+    }
+
+    /**
+     * 增量：保留开头 keep 条，随后删除 removed 条，再追加新列表中从 appendFrom 开始的消息
+     */
+    record Delta(int keep, int removed, int appendFrom) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.carpe.aicodemother.ai.model.message;
+
+import com.carpe.aicodemother.core.builder.BuildProgress;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 构建进度消息
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public final class BuildProgressMessage extends StreamMessage {
+
+    /**
+     * 构建阶段（install / build）
+     */
+    private String phase;
+
+    /**
+     * 构建阶段名称
+     */
+    private String phaseText;
+
+    /**
+     * 阶段状态
+     */
+    private String status;
+
+    /**
+     * 阶段耗时（毫秒）
+     */
+    private long durationMs;
+
+    /**
+     * 补充信息（失败原因及最近的构建输出）
+     */
+    private String detail;
+
+    public BuildProgressMessage(BuildProgress progress) {
+        super(StreamMessageTypeEnum.BUILD_PROGRESS.getValue());
+        this.phase = progress.phase().getValue();
+        this.phaseText = progress.phase().getText();
+        this.status = progress.status().name().toLowerCase();
+        this.durationMs = progress.durationMs();
+        this.detail = progress.detail();
+    }
+}
@@ -1,7 +1,10 @@
 package com.carpe.aicodemother.ai.tools;
 
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
 
+import java.nio.file.Paths;
+
 /**
  * 工具基类
  * 定义所有工具的通用接口
@@ -38,4 +41,25 @@ public abstract class BaseTool {
      * @return 格式化的工具执行结果
      */
     public abstract String generateToolExecutedResult(JSONObject arguments);
+
+    /**
+     * 获取本次调用涉及的资源标识（如文件路径），用于并行执行工具时判断冲突
+     * 标识相同的调用串行执行；返回 null 表示不能与其他调用并行执行
+     *
+     * @param arguments 工具执行参数
+     * @return 资源标识
+     */
+    public String getConflictKey(JSONObject arguments) {
+        return null;
+    }
+
+    /**
+     * 将相对路径规范化为冲突标识
+     */
+    protected static String toPathConflictKey(String relativePath) {
+        if (StrUtil.isBlank(relativePath)) {
+            return null;
+        }
+        return Paths.get(relativePath).normalize().toString();
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.carpe.aicodemother.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.carpe.aicodemother.constant.AppConstant;
+import com.carpe.aicodemother.core.preview.PreviewFileChangeNotifier;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -46,6 +47,7 @@ public class FileDeleteTool extends BaseTool {
                 return "错误：不允许删除重要文件 - " + fileName;
             }
             Files.delete(path);
+            PreviewFileChangeNotifier.notifyChanged(path);
             log.info("成功删除文件: {}", path.toAbsolutePath());
             return "文件删除成功: " + relativeFilePath;
         } catch (IOException e) {
@@ -88,4 +90,9 @@ public class FileDeleteTool extends BaseTool {
         String relativeFilePath = arguments.getStr("relativeFilePath");
         return String.format(" [工具调用] %s %s", getDisplayName(), relativeFilePath);
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return toPathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+}
@@ -2,6 +2,7 @@ package com.carpe.aicodemother.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.carpe.aicodemother.constant.AppConstant;
+import com.carpe.aicodemother.core.preview.PreviewFileChangeNotifier;
 
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
@@ -52,6 +53,7 @@ public class FileModifyTool extends BaseTool {
                 return "信息：替换后文件内容未发生变化 - " + relativeFilePath;
             }
             Files.writeString(path, modifiedContent, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            PreviewFileChangeNotifier.notifyChanged(path);
             log.info("成功修改文件: {}", path.toAbsolutePath());
             return "文件修改成功: " + relativeFilePath;
         } catch (IOException e) {
@@ -91,4 +93,9 @@ public class FileModifyTool extends BaseTool {
                 ```
                 """, getDisplayName(), relativeFilePath, oldContent, newContent);
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return toPathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+}
@@ -61,4 +61,9 @@ public class FileReadTool extends BaseTool {
         String relativeFilePath = arguments.getStr("relativeFilePath");
         return String.format("[工具调用] %s %s", getDisplayName(), relativeFilePath);
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return toPathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+}
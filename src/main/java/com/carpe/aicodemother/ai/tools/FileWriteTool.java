@@ -3,6 +3,7 @@ package com.carpe.aicodemother.ai.tools;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.json.JSONObject;
 import com.carpe.aicodemother.constant.AppConstant;
+import com.carpe.aicodemother.core.preview.PreviewFileChangeNotifier;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -48,6 +49,7 @@ public class FileWriteTool extends BaseTool {
             Files.write(path, content.getBytes(),
                     StandardOpenOption.CREATE,
                     StandardOpenOption.TRUNCATE_EXISTING);
+            PreviewFileChangeNotifier.notifyChanged(path);
             log.info("成功写入文件: {}", path.toAbsolutePath());
             // 注意要返回相对路径，不能让 AI 把文件绝对路径返回给用户
             return "文件写入成功: " + relativeFilePath;
@@ -80,4 +82,9 @@ public class FileWriteTool extends BaseTool {
                 ```
                 """, getDisplayName(), relativeFilePath, suffix, content);
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return toPathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+}
@@ -1,5 +1,8 @@
 package com.carpe.aicodemother.ai.tools;
 
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -50,6 +53,26 @@ public class ToolManager {
         return toolMap.get(toolName);
     }
 
+    /**
+     * 获取工具调用涉及的资源标识，用于并行执行工具时判断冲突
+     *
+     * @param toolExecutionRequest 工具调用请求
+     * @return 资源标识，未知工具、参数无法解析或不支持并行时返回 null
+     */
+    public String resolveConflictKey(ToolExecutionRequest toolExecutionRequest) {
+        BaseTool tool = getTool(toolExecutionRequest.name());
+        if (tool == null) {
+            return null;
+        }
+        try {
+            JSONObject arguments = JSONUtil.parseObj(toolExecutionRequest.arguments());
+            return tool.getConflictKey(arguments);
+        } catch (Exception e) {
+            log.warn("解析工具参数失败, 工具: {}, 错误: {}", toolExecutionRequest.name(), e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 获取已注册的工具集合
      *
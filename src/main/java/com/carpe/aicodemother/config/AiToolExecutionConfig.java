@@ -0,0 +1,68 @@
+package com.carpe.aicodemother.config;
+
+import com.carpe.aicodemother.ai.tools.ToolManager;
+import com.carpe.aicodemother.monitor.MonitorContextHolder;
+import dev.langchain4j.service.StreamingContinuationExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AI 工具执行配置
+ * 流式响应结束后的工具执行、后续模型调用以及完成回调（如 Vue 项目构建）默认在 HTTP 客户端的回调线程上同步执行，
+ * 慢速的磁盘 I/O 或构建会占住回调线程。开启后改为在虚拟线程上执行，并把监控上下文传递过去。
+ * <p>
+ * 可选开启并行工具执行：模型一次返回多个工具调用时，操作不同文件的调用并发执行，
+ * 同一文件的调用按原顺序串行，结果按原顺序写入记忆
+ */
+@Configuration
+@Slf4j
+public class AiToolExecutionConfig {
+
+    /**
+     * 是否在虚拟线程上执行工具和后续模型调用，关闭时保持在回调线程上同步执行
+     */
+    @Value("${ai.tool-execution.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    /**
+     * 是否并行执行同一轮中的多个工具调用（需同时开启虚拟线程）
+     */
+    @Value("${ai.tool-execution.parallel:false}")
+    private boolean parallel;
+
+    @Resource
+    private ToolManager toolManager;
+
+    private ExecutorService toolExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads) {
+            toolExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-tool-", 0).factory());
+            StreamingContinuationExecutor.configure(toolExecutor, MonitorContextHolder::capture);
+            if (parallel) {
+                StreamingContinuationExecutor.configureParallelTools(toolManager::resolveConflictKey);
+            }
+        } else {
+            StreamingContinuationExecutor.configure(null, MonitorContextHolder::capture);
+        }
+        log.info("AI 工具执行模式: {}, 并行执行: {}", virtualThreads ? "虚拟线程" : "回调线程同步执行",
+                virtualThreads && parallel);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        StreamingContinuationExecutor.configure(null, null);
+        StreamingContinuationExecutor.configureParallelTools(null);
+        if (toolExecutor != null) {
+            toolExecutor.shutdown();
+        }
+    }
+}
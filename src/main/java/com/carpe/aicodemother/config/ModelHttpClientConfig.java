@@ -0,0 +1,70 @@
+package com.carpe.aicodemother.config;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AI 模型共享 HTTP 客户端配置
+ * 所有多例流式模型复用同一个 JDK HttpClient：连接池、TLS 会话和 HTTP/2 连接在应用之间共享，
+ * 新应用的首个请求不再需要重新握手
+ * <p>
+ * JDK HttpClient 的连接池大小和空闲连接保活时间是整个 JVM 的设置，只能在启动时通过 -D 参数指定
+ * （-Djdk.httpclient.connectionPoolSize、-Djdk.httpclient.keepalive.timeout），对进程内所有 JDK 客户端生效，
+ * 这里不提供对应配置项，只在创建客户端时打印实际生效的值
+ */
+@Configuration
+@ConfigurationProperties(prefix = "langchain4j.http-client")
+@Data
+@Slf4j
+public class ModelHttpClientConfig {
+
+    /**
+     * 连接超时（秒），所有共享该客户端的模型使用同一个连接超时，
+     * 模型构建时传入的连接超时（未设置 timeout 时为 15 秒）必须与之一致，否则构建失败
+     */
+    private int connectTimeoutSeconds = 15;
+
+    /**
+     * 是否优先使用 HTTP/2（通过 ALPN 协商，不支持时自动降级为 HTTP/1.1），同一连接上多路复用多个流
+     */
+    private boolean http2 = true;
+
+    /**
+     * 是否使用虚拟线程作为 HttpClient 的执行器（流式响应在独立的虚拟线程上读取，不占用该执行器）
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * 不使用虚拟线程时的线程池大小
+     */
+    private int executorThreads = 32;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService modelHttpClientExecutor() {
+        return virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(executorThreads);
+    }
+
+    @Bean(destroyMethod = "close")
+    public HttpClient modelHttpClient(ExecutorService modelHttpClientExecutor) {
+        log.info("创建 AI 模型共享 HTTP 客户端, HTTP/2: {}, 虚拟线程: {}, 连接池大小: {}, 空闲连接保活时间（秒）: {}",
+                http2, virtualThreads,
+                System.getProperty("jdk.httpclient.connectionPoolSize", "JDK 默认（不限制）"),
+                System.getProperty("jdk.httpclient.keepalive.timeout", "JDK 默认"));
+        return HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(modelHttpClientExecutor)
+                .build();
+    }
+}
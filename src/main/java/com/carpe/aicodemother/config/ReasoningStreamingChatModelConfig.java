@@ -1,5 +1,6 @@
 package com.carpe.aicodemother.config;
 
+import com.carpe.aicodemother.ai.http.SharedJdkHttpClientBuilder;
 import com.carpe.aicodemother.monitor.AiModelMonitorListener;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
@@ -10,6 +11,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 
+import java.net.http.HttpClient;
 import java.util.List;
 
 @Configuration
@@ -34,10 +36,15 @@ public class ReasoningStreamingChatModelConfig {
     @Resource
     private AiModelMonitorListener aiModelMonitorListener;
 
+    @Resource
+    private HttpClient modelHttpClient;
+
     @Bean
     @Scope("prototype")
     public StreamingChatModel reasoningStreamingChatModelPrototype() {
+        // 多例模型共享同一个 HTTP 客户端（连接池、TLS 会话、HTTP/2 连接），请求状态各自独立
         return OpenAiStreamingChatModel.builder()
+                .httpClientBuilder(new SharedJdkHttpClientBuilder(modelHttpClient))
                 .apiKey(apiKey)
                 .baseUrl(baseUrl)
                 .modelName(modelName)
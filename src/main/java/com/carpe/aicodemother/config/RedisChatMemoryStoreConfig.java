@@ -1,17 +1,32 @@
 package com.carpe.aicodemother.config;
 
 import cn.hutool.core.util.StrUtil;
-import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import com.carpe.aicodemother.ai.memory.NearCacheChatMemoryStore;
+import com.carpe.aicodemother.ai.memory.RedisListChatMemoryStore;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import lombok.Data;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPooled;
+
+import java.time.Duration;
 
 @Configuration
 @ConfigurationProperties(prefix = "spring.data.redis")
 @Data
 public class RedisChatMemoryStoreConfig {
 
+    private static final String CHAT_MEMORY_INVALIDATION_TOPIC = "chat_memory:invalidation";
+
+    private static final String CHAT_MEMORY_KEY_PREFIX = "chat_memory:list:";
+
     private String host;
 
     private int port;
@@ -20,17 +35,49 @@ public class RedisChatMemoryStoreConfig {
 
     private long ttl;
 
-    @Bean
-    public RedisChatMemoryStore redisChatMemoryStore() {
-        RedisChatMemoryStore.Builder builder = RedisChatMemoryStore.builder()
-                .host(host)
-                .port(port)
-                .password(password)
-                .ttl(ttl);
+    /**
+     * 本地近缓存的总大小上限（字节，按消息文本估算）
+     */
+    @Value("${chat-memory.near-cache.max-bytes:67108864}")
+    private long nearCacheMaxBytes;
+
+    /**
+     * 增量写入所用快照的总大小上限（字节，按消息文本估算）
+     */
+    @Value("${chat-memory.snapshot-cache.max-bytes:67108864}")
+    private long snapshotCacheMaxBytes;
+
+    /**
+     * 对话记忆使用的 Jedis 连接池，随容器关闭释放连接
+     */
+    @Bean(destroyMethod = "close")
+    public JedisPooled chatMemoryJedisPooled() {
+        DefaultJedisClientConfig.Builder clientConfig = DefaultJedisClientConfig.builder();
         if (StrUtil.isNotBlank(password)) {
-            builder.user("default");
+            clientConfig.user("default").password(password);
         }
-        return builder.build();
+        return new JedisPooled(new HostAndPort(host, port), clientConfig.build());
+    }
+
+    /**
+     * 以 Redis List 保存对话记忆，每次更新只追加新消息、在服务端裁剪窗口，不再整段覆盖写入
+     */
+    @Bean
+    public RedisListChatMemoryStore redisListChatMemoryStore(JedisPooled chatMemoryJedisPooled) {
+        return new RedisListChatMemoryStore(chatMemoryJedisPooled, CHAT_MEMORY_KEY_PREFIX, ttl, snapshotCacheMaxBytes);
+    }
+
+    /**
+     * 在 Redis 对话记忆之前加一层本地近缓存，多节点之间通过 Redis 发布订阅同步失效
+     */
+    @Bean
+    @Primary
+    public ChatMemoryStore chatMemoryStore(RedisListChatMemoryStore redisListChatMemoryStore, RedissonClient redissonClient) {
+        RTopic topic = redissonClient.getTopic(CHAT_MEMORY_INVALIDATION_TOPIC);
+        NearCacheChatMemoryStore chatMemoryStore = new NearCacheChatMemoryStore(redisListChatMemoryStore,
+                topic::publish, nearCacheMaxBytes, Duration.ofMinutes(10));
+        topic.addListener(String.class, (channel, message) -> chatMemoryStore.onInvalidation(message));
+        return chatMemoryStore;
     }
 
 }
@@ -22,6 +22,16 @@ public interface AppConstant {
      */
     String CODE_DEPLOY_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_deploy";
 
+    /**
+     * Vue 项目共享 node_modules 缓存目录（按依赖指纹组织）
+     */
+    String NODE_MODULES_CACHE_DIR = System.getProperty("user.dir") + "/tmp/node_modules_cache";
+
+    /**
+     * Vue 项目构建缓存目录（按项目组织，存放 Vite 缓存，不写入共享的 node_modules）
+     */
+    String VITE_BUILD_CACHE_DIR = System.getProperty("user.dir") + "/tmp/vite_build_cache";
+
     /**
      * 应用部署域名
      */
@@ -2,7 +2,6 @@ package com.carpe.aicodemother.controller;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 import com.carpe.aicodemother.annotation.AuthCheck;
 import com.carpe.aicodemother.common.BaseResponse;
 import com.carpe.aicodemother.common.DeleteRequest;
@@ -21,11 +20,13 @@ import com.carpe.aicodemother.ratelimiter.enums.RateLimitType;
 import com.carpe.aicodemother.service.AppService;
 import com.carpe.aicodemother.service.ProjectDownloadService;
 import com.carpe.aicodemother.service.UserService;
+import com.carpe.aicodemother.utils.SseEventUtils;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
@@ -34,9 +35,9 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.File;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 应用 控制层。
@@ -56,6 +57,18 @@ public class AppController {
     @Resource
     private ProjectDownloadService projectDownloadService;
 
+    /**
+     * SSE 合并窗口（毫秒），为 0 时每个 token 单独发送
+     */
+    @Value("${code.sse.coalesce-window-ms:20}")
+    private long sseCoalesceWindowMs;
+
+    /**
+     * SSE 单帧最多合并的 token 数
+     */
+    @Value("${code.sse.coalesce-max-chunks:32}")
+    private int sseCoalesceMaxChunks;
+
     @GetMapping(value = "/chat/gen/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @RateLimit(limitType = RateLimitType.USER, rate = 5, rateInterval = 60, message = "AI 对话请求过于频繁，请稍后再试")
     public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId,
@@ -68,14 +81,8 @@ public class AppController {
         User loginUser = userService.getLoginUser(request);
         // 调用服务生成代码（SSE 流式返回）
         Flux<String> contentFlux = appService.chatToGenCode(appId, message, loginUser);
-        return contentFlux
-                .map(chunk -> {
-                    Map<String, String> wrapper = Map.of("d", chunk);
-                    String jsonData = JSONUtil.toJsonStr(wrapper);
-                    return ServerSentEvent.<String>builder()
-                            .data(jsonData)
-                            .build();
-                })
+        // 直接转义编码为 {"d":"..."} 帧，并在短时间窗口内合并细碎 token
+        return SseEventUtils.toDataEvents(contentFlux, Duration.ofMillis(sseCoalesceWindowMs), sseCoalesceMaxChunks)
                 .concatWith(Mono.just(
                         // 发送结束事件
                         ServerSentEvent.<String>builder()
@@ -108,6 +115,23 @@ public class AppController {
         return ResultUtils.success(deployUrl);
     }
 
+    /**
+     * 应用部署回滚（切换到上一个发布版本）
+     *
+     * @param appDeployRequest 部署请求
+     * @param request          请求
+     * @return 部署 URL
+     */
+    @PostMapping("/deploy/rollback")
+    public BaseResponse<String> rollbackDeploy(@RequestBody AppDeployRequest appDeployRequest, HttpServletRequest request) {
+        ThrowUtils.throwIf(appDeployRequest == null, ErrorCode.PARAMS_ERROR);
+        Long appId = appDeployRequest.getAppId();
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        User loginUser = userService.getLoginUser(request);
+        String deployUrl = appService.rollbackDeploy(appId, loginUser);
+        return ResultUtils.success(deployUrl);
+    }
+
     /**
      * 下载应用代码
      *
@@ -41,6 +41,7 @@ public class ChatHistoryController {
      * @param appId          应用ID
      * @param pageSize       页面大小
      * @param lastCreateTime 最后一条记录的创建时间
+     * @param lastId         最后一条记录的 id
      * @param request        请求
      * @return 对话历史分页
      */
@@ -48,9 +49,10 @@ public class ChatHistoryController {
     public BaseResponse<Page<ChatHistory>> listAppChatHistory(@PathVariable Long appId,
                                                               @RequestParam(defaultValue = "10") int pageSize,
                                                               @RequestParam(required = false) LocalDateTime lastCreateTime,
+                                                              @RequestParam(required = false) Long lastId,
                                                               HttpServletRequest request) {
         User loginUser = userService.getLoginUser(request);
-        Page<ChatHistory> result = chatHistoryService.listAppChatHistoryByPage(appId, pageSize, lastCreateTime, loginUser);
+        Page<ChatHistory> result = chatHistoryService.listAppChatHistoryByCursor(appId, pageSize, lastCreateTime, lastId, loginUser);
         return ResultUtils.success(result);
     }
 
@@ -1,17 +1,21 @@
 package com.carpe.aicodemother.core;
 
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.carpe.aicodemother.ai.AiCodeGeneratorService;
 import com.carpe.aicodemother.ai.AiCodeGeneratorServiceFactory;
 import com.carpe.aicodemother.ai.model.HtmlCodeResult;
 import com.carpe.aicodemother.ai.model.MultiFileCodeResult;
 import com.carpe.aicodemother.ai.model.message.AiResponseMessage;
+import com.carpe.aicodemother.ai.model.message.BuildProgressMessage;
+import com.carpe.aicodemother.ai.model.message.StreamMessage;
 import com.carpe.aicodemother.ai.model.message.ToolExecutedMessage;
 import com.carpe.aicodemother.ai.model.message.ToolRequestMessage;
 import com.carpe.aicodemother.constant.AppConstant;
-import com.carpe.aicodemother.core.builder.VueProjectBuilder;
-import com.carpe.aicodemother.core.parser.CodeParserExecutor;
+import com.carpe.aicodemother.core.builder.VueBuildScheduler;
+import com.carpe.aicodemother.core.parser.StreamingCodeParser;
 import com.carpe.aicodemother.core.saver.CodeFileSaverExecutor;
+import com.carpe.aicodemother.core.saver.StreamingCodeFileWriter;
 import com.carpe.aicodemother.exception.BusinessException;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.model.enums.CodeGenTypeEnum;
@@ -36,7 +40,7 @@ public class AiCodeGeneratorFacade {
     private AiCodeGeneratorServiceFactory aiCodeGeneratorServiceFactory;
 
     @Resource
-    private VueProjectBuilder vueProjectBuilder;
+    private VueBuildScheduler vueBuildScheduler;
 
     /**
      * 统一入口：根据类型生成并保存代码 (使用 appId)
@@ -69,6 +73,7 @@ public class AiCodeGeneratorFacade {
 
     /**
      * 统一入口：根据类型生成并保存代码（流式）
+     * VUE_PROJECT 类型的消息在此处序列化为 JSON 字符串，供只需要字符串流的调用方使用
      *
      * @param userMessage     用户提示词
      * @param codeGenTypeEnum 生成类型
@@ -82,18 +87,35 @@ public class AiCodeGeneratorFacade {
         // 根据 appId 获取相应的 AI 服务实例
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenTypeEnum);
         return switch (codeGenTypeEnum) {
-            case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId);
-            }
-            case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId);
-            }
-            case VUE_PROJECT -> {
-                TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
-                yield processTokenStream(tokenStream, appId);
+            case HTML, MULTI_FILE -> generateCodeStream(aiCodeGeneratorService, userMessage, codeGenTypeEnum, appId);
+            case VUE_PROJECT -> generateVueProjectMessageStream(aiCodeGeneratorService, userMessage, appId)
+                    .map(JSONUtil::toJsonStr);
+            default -> {
+                String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
             }
+        };
+    }
+
+    /**
+     * 统一入口：根据类型生成并保存代码（流式，类型化消息）
+     * 消息以对象形式一路传递到流处理器，不再经过 JSON 序列化与反序列化
+     *
+     * @param userMessage     用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @param appId           应用 ID
+     * @return 流式消息
+     */
+    public Flux<StreamMessage> generateAndSaveCodeMessageStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+        if (codeGenTypeEnum == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
+        }
+        // 根据 appId 获取相应的 AI 服务实例
+        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenTypeEnum);
+        return switch (codeGenTypeEnum) {
+            case HTML, MULTI_FILE -> generateCodeStream(aiCodeGeneratorService, userMessage, codeGenTypeEnum, appId)
+                    .map(AiResponseMessage::new);
+            case VUE_PROJECT -> generateVueProjectMessageStream(aiCodeGeneratorService, userMessage, appId);
             default -> {
                 String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
                 throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
@@ -101,31 +123,46 @@ public class AiCodeGeneratorFacade {
         };
     }
 
+    /**
+     * 生成 HTML / MULTI_FILE 代码流并保存
+     */
+    private Flux<String> generateCodeStream(AiCodeGeneratorService aiCodeGeneratorService, String userMessage,
+                                            CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+        Flux<String> codeStream = codeGenTypeEnum == CodeGenTypeEnum.HTML
+                ? aiCodeGeneratorService.generateHtmlCodeStream(userMessage)
+                : aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
+        return processCodeStream(codeStream, codeGenTypeEnum, appId);
+    }
+
+    /**
+     * 生成 Vue 项目消息流
+     */
+    private Flux<StreamMessage> generateVueProjectMessageStream(AiCodeGeneratorService aiCodeGeneratorService,
+                                                                String userMessage, Long appId) {
+        // 新一轮生成会改写项目代码，旧代码的构建已无意义
+        vueBuildScheduler.cancel(getVueProjectPath(appId));
+        TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
+        return processTokenStream(tokenStream, appId);
+    }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用信息
      *
      * @param tokenStream TokenStream 对象
-     * @return Flux<String> 流式响应
+     * @return Flux<StreamMessage> 流式响应
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream, Long appId) {
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream, Long appId) {
         return Flux.create(sink -> {
-            tokenStream.onPartialResponse((String partialResponse) -> {
-                        AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                        sink.next(JSONUtil.toJsonStr(aiResponseMessage));
-                    })
-                    .onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        sink.next(JSONUtil.toJsonStr(toolRequestMessage));
-                    })
-                    .onToolExecuted((ToolExecution toolExecution) -> {
-                        ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
-                        sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
-                    })
+            tokenStream.onPartialResponse((String partialResponse) ->
+                            sink.next(new AiResponseMessage(partialResponse)))
+                    .onPartialToolExecutionRequest((index, toolExecutionRequest) ->
+                            sink.next(new ToolRequestMessage(toolExecutionRequest)))
+                    .onToolExecuted((ToolExecution toolExecution) ->
+                            sink.next(new ToolExecutedMessage(toolExecution)))
                     .onCompleteResponse((ChatResponse response) -> {
-                        // 执行 Vue 项目构建（同步执行，确保预览时项目已就绪）
-                        String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator + "vue_project_" + appId;
-                        vueProjectBuilder.buildProject(projectPath);
+                        // 执行 Vue 项目构建（经构建调度器排队，等待完成以确保预览时项目已就绪），构建进度推送到前端
+                        vueBuildScheduler.buildAndWait(getVueProjectPath(appId),
+                                progress -> sink.next(new BuildProgressMessage(progress)));
                         sink.complete();
                     })
                     .onError((Throwable error) -> {
@@ -136,8 +173,14 @@ public class AiCodeGeneratorFacade {
         });
     }
 
+    private String getVueProjectPath(Long appId) {
+        return AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator + CodeGenTypeEnum.VUE_PROJECT.getValue() + "_" + appId;
+    }
+
     /**
      * 通用流式代码处理方法
+     * 使用流式解析器边接收边解析：代码块内容实时追加到临时文件，代码块闭合后原子发布为正式文件，
+     * 无需在流结束后再做全文解析和保存
      *
      * @param codeStream  代码流
      * @param codeGenType 代码生成类型
@@ -145,23 +188,33 @@ public class AiCodeGeneratorFacade {
      * @return 流式响应
      */
     private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId) {
-        // 字符串拼接器，用于当流式返回所有的代码之后，再保存代码
-        StringBuilder codeBuilder = new StringBuilder();
-        return codeStream.doOnNext(chunk -> {
-            // 实时收集代码片段
-            codeBuilder.append(chunk);
-        }).doOnComplete(() -> {
-            // 流式返回完成后，保存代码
-            try {
-                String completeCode = codeBuilder.toString();
-                // 使用执行器解析代码
-                Object parsedResult = CodeParserExecutor.executeParser(completeCode, codeGenType);
-                // 使用执行器保存代码
-                File saveDir = CodeFileSaverExecutor.executeSaver(parsedResult, codeGenType, appId);
-                log.info("保存成功，目录为：{}", saveDir.getAbsolutePath());
-            } catch (Exception e) {
-                log.error("保存失败: {}", e.getMessage());
-            }
-        });
+        return Flux.using(
+                () -> CodeFileSaverExecutor.openStreamWriter(codeGenType, appId),
+                codeFileWriter -> {
+                    // 流式解析器，代码片段交给写入器追加，代码块完成时原子发布
+                    // 只有单文件 HTML 模式在缺少 html 代码块时把全部内容作为 HTML
+                    StreamingCodeParser streamingCodeParser = new StreamingCodeParser(
+                            codeFileWriter::append,
+                            (language, code) -> {
+                                codeFileWriter.commit(language, code);
+                                log.info("{} 代码块保存成功，应用 ID：{}", language, appId);
+                            },
+                            codeGenType == CodeGenTypeEnum.HTML);
+                    return codeStream.doOnNext(streamingCodeParser::append)
+                            .doOnComplete(() -> {
+                                // 流式返回完成后，处理未闭合内容及兜底逻辑
+                                try {
+                                    MultiFileCodeResult parsedResult = streamingCodeParser.finish();
+                                    if (StrUtil.isBlank(parsedResult.getHtmlCode())) {
+                                        log.error("保存失败: HTML代码内容不能为空");
+                                    }
+                                } catch (Exception e) {
+                                    log.error("保存失败: {}", e.getMessage());
+                                }
+                            });
+                },
+                // 结束时清理未提交的临时文件（出错或取消）
+                StreamingCodeFileWriter::close
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.carpe.aicodemother.core.builder;
+
+import cn.hutool.core.util.HexUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Vue 项目构建指纹工具类
+ * <p>
+ * - 依赖指纹：package.json + 锁文件，用于定位共享的 node_modules 缓存
+ * - 源码指纹：项目目录下除 node_modules、dist 以外的全部文件，用于判断 dist 是否仍然有效
+ */
+public final class BuildFingerprintUtils {
+
+    /**
+     * 参与依赖指纹计算的锁文件（按优先级）
+     */
+    public static final List<String> LOCK_FILE_NAMES = List.of("package-lock.json", "pnpm-lock.yaml", "yarn.lock");
+
+    /**
+     * 记录最近一次成功构建指纹的文件，与 dist 目录同级
+     */
+    public static final String DIST_FINGERPRINT_FILE_NAME = ".dist-fingerprint";
+
+    /**
+     * 计算源码指纹时跳过的目录和文件（只匹配项目根目录下的一级条目）
+     */
+    private static final Set<String> SOURCE_EXCLUDED_NAMES = Set.of("node_modules", "dist", DIST_FINGERPRINT_FILE_NAME);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private BuildFingerprintUtils() {
+        throw new UnsupportedOperationException("工具类不能实例化");
+    }
+
+    /**
+     * 计算依赖指纹：package.json 与存在的锁文件内容的 SHA-256
+     *
+     * @param projectDir 项目根目录
+     * @return 十六进制指纹
+     */
+    public static String dependencyHash(Path projectDir) {
+        MessageDigest digest = newDigest();
+        updateWithFile(digest, projectDir, "package.json");
+        for (String lockFileName : LOCK_FILE_NAMES) {
+            if (Files.isRegularFile(projectDir.resolve(lockFileName))) {
+                updateWithFile(digest, projectDir, lockFileName);
+            }
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 计算源码指纹：按相对路径排序后依次摘要路径和内容，与遍历顺序、修改时间无关
+     *
+     * @param projectDir 项目根目录
+     * @return 十六进制指纹
+     */
+    public static String sourceTreeHash(Path projectDir) {
+        return treeHash(projectDir, relative -> !SOURCE_EXCLUDED_NAMES.contains(relative.getName(0).toString()));
+    }
+
+    /**
+     * 计算目录下全部文件的指纹，算法与源码指纹相同（如部署目录的内容指纹）
+     *
+     * @param dir 目录
+     * @return 十六进制指纹
+     */
+    public static String fileTreeHash(Path dir) {
+        return treeHash(dir, relative -> true);
+    }
+
+    /**
+     * 计算构建指纹：依赖指纹与源码指纹组合，任意一方变化都需要重新构建
+     *
+     * @param dependencyHash 依赖指纹
+     * @param sourceTreeHash 源码指纹
+     * @return 十六进制指纹
+     */
+    public static String buildFingerprint(String dependencyHash, String sourceTreeHash) {
+        MessageDigest digest = newDigest();
+        digest.update(dependencyHash.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(sourceTreeHash.getBytes(StandardCharsets.UTF_8));
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    private static String treeHash(Path dir, Predicate<Path> includeRelative) {
+        MessageDigest digest = newDigest();
+        try (Stream<Path> stream = Files.walk(dir)) {
+            List<Path> files = stream
+                    .filter(Files::isRegularFile)
+                    .map(dir::relativize)
+                    .filter(includeRelative)
+                    // 统一分隔符后排序，保证不同平台上的结果一致
+                    .sorted((a, b) -> toUnixPath(a).compareTo(toUnixPath(b)))
+                    .toList();
+            for (Path relative : files) {
+                updateWithFile(digest, dir, toUnixPath(relative));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("计算文件指纹失败: " + dir, e);
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 把相对路径和文件内容写入摘要，路径与内容之间用长度分隔，避免不同文件拼接后碰撞
+     */
+    private static void updateWithFile(MessageDigest digest, Path projectDir, String relativePath) {
+        Path file = projectDir.resolve(relativePath);
+        byte[] pathBytes = relativePath.getBytes(StandardCharsets.UTF_8);
+        digest.update(pathBytes);
+        digest.update((byte) 0);
+        try {
+            digest.update(Long.toString(Files.size(file)).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件失败: " + file, e);
+        }
+    }
+
+    private static String toUnixPath(Path relative) {
+        return relative.toString().replace('\\', '/');
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
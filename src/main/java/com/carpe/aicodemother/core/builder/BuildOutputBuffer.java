@@ -0,0 +1,71 @@
+package com.carpe.aicodemother.core.builder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 构建输出环形缓冲区
+ * 只保留最近若干行 npm 输出，构建失败时用于定位原因，内存占用有上限
+ */
+public class BuildOutputBuffer {
+
+    /**
+     * 单行最大长度，超出部分截断
+     */
+    private static final int MAX_LINE_LENGTH = 1000;
+
+    private final int maxLines;
+
+    private final Deque<String> lines;
+
+    private long totalLines;
+
+    public BuildOutputBuffer(int maxLines) {
+        this.maxLines = maxLines;
+        this.lines = new ArrayDeque<>(maxLines);
+    }
+
+    /**
+     * 追加一行输出，超出容量时丢弃最早的一行
+     *
+     * @param line 输出行
+     */
+    public synchronized void append(String line) {
+        if (line.length() > MAX_LINE_LENGTH) {
+            line = line.substring(0, MAX_LINE_LENGTH) + "...";
+        }
+        if (lines.size() == maxLines) {
+            lines.pollFirst();
+        }
+        lines.addLast(line);
+        totalLines++;
+    }
+
+    /**
+     * 获取最近的若干行
+     *
+     * @param count 行数
+     * @return 按时间顺序排列的输出行
+     */
+    public synchronized List<String> tail(int count) {
+        int skip = Math.max(0, lines.size() - count);
+        List<String> result = new ArrayList<>(lines.size() - skip);
+        for (String line : lines) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            result.add(line);
+        }
+        return result;
+    }
+
+    /**
+     * 累计写入的行数（包括已被丢弃的行）
+     */
+    public synchronized long getTotalLines() {
+        return totalLines;
+    }
+}
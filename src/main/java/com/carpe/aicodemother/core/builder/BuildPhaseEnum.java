@@ -0,0 +1,21 @@
+package com.carpe.aicodemother.core.builder;
+
+import lombok.Getter;
+
+/**
+ * Vue 项目构建阶段枚举
+ */
+@Getter
+public enum BuildPhaseEnum {
+
+    INSTALL("install", "安装依赖"),
+    BUILD("build", "构建项目");
+
+    private final String value;
+    private final String text;
+
+    BuildPhaseEnum(String value, String text) {
+        this.value = value;
+        this.text = text;
+    }
+}
@@ -0,0 +1,19 @@
+package com.carpe.aicodemother.core.builder;
+
+/**
+ * 构建进度事件
+ *
+ * @param phase      构建阶段
+ * @param status     阶段状态
+ * @param durationMs 阶段耗时（毫秒），开始事件为 0
+ * @param detail     补充信息（如失败原因），可为 null
+ */
+public record BuildProgress(BuildPhaseEnum phase, Status status, long durationMs, String detail) {
+
+    /**
+     * 阶段状态
+     */
+    public enum Status {
+        STARTED, SUCCEEDED, SKIPPED, FAILED
+    }
+}
@@ -0,0 +1,21 @@
+package com.carpe.aicodemother.core.builder;
+
+/**
+ * 构建进度监听器
+ */
+@FunctionalInterface
+public interface BuildProgressListener {
+
+    /**
+     * 不关心进度的调用方使用
+     */
+    BuildProgressListener NONE = progress -> {
+    };
+
+    /**
+     * 接收构建进度事件（在构建线程上回调，实现不应阻塞）
+     *
+     * @param progress 进度事件
+     */
+    void onProgress(BuildProgress progress);
+}
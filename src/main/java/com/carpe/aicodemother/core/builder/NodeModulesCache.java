@@ -0,0 +1,383 @@
+package com.carpe.aicodemother.core.builder;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.carpe.aicodemother.constant.AppConstant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 共享 node_modules 缓存
+ * 按依赖指纹（package.json + 锁文件）在 NODE_MODULES_CACHE_DIR 下保存安装好的 node_modules，
+ * 项目中的 node_modules 以符号链接指向缓存条目，依赖相同的项目无需再次执行 npm install
+ * <p>
+ * - 缓存条目先在临时目录中组装，再原子重命名为 {指纹} 目录，条目存在即表示完整可用
+ * - 项目原本没有锁文件时，安装后会生成锁文件，此时以安装后的指纹保存条目，并为安装前的指纹建立别名
+ * - 条目数超过上限时按最近使用时间（命中或发布时刷新条目目录的修改时间）淘汰，
+ * 仍被项目链接的条目不淘汰，淘汰条目时一并删除指向它的别名
+ * - 当前文件系统不支持符号链接时自动禁用缓存
+ */
+@Slf4j
+@Component
+public class NodeModulesCache {
+
+    private static final String NODE_MODULES = "node_modules";
+
+    private static final String STAGING_MARKER = ".tmp-";
+
+    /**
+     * 超过该时间的临时目录视为异常中断遗留，清理时删除
+     */
+    private static final Duration STALE_STAGING_AGE = Duration.ofHours(1);
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 是否启用共享 node_modules 缓存
+     */
+    @Value("${vue-builder.dependency-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 最多保留的缓存条目数（不含别名）
+     */
+    @Value("${vue-builder.dependency-cache.max-entries:20}")
+    private int maxEntries;
+
+    private final Path cacheRoot = Paths.get(AppConstant.NODE_MODULES_CACHE_DIR);
+
+    /**
+     * 项目所在的根目录，淘汰前扫描其中的 node_modules 链接确定正在使用的条目
+     */
+    private Path projectsRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR);
+
+    /**
+     * 链接条目时持有读锁，淘汰时持有写锁，避免条目在检查与链接之间被删除
+     */
+    private final ReadWriteLock entryLock = new ReentrantReadWriteLock();
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() {
+        hitCounter = Counter.builder("vue_build_dependency_cache_total")
+                .description("Vue 项目依赖缓存命中情况")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        missCounter = Counter.builder("vue_build_dependency_cache_total")
+                .description("Vue 项目依赖缓存命中情况")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        if (enabled && !isSymbolicLinkSupported()) {
+            log.warn("当前文件系统不支持符号链接，已禁用共享 node_modules 缓存");
+            enabled = false;
+        }
+    }
+
+    /**
+     * 依赖已缓存时把项目的 node_modules 链接到缓存条目
+     *
+     * @param projectDir     项目根目录
+     * @param dependencyHash 依赖指纹
+     * @return 是否命中缓存（命中时无需执行 npm install）
+     */
+    public boolean linkIfCached(Path projectDir, String dependencyHash) {
+        if (!enabled) {
+            return false;
+        }
+        Path entry = cacheRoot.resolve(dependencyHash);
+        entryLock.readLock().lock();
+        try {
+            if (!Files.isDirectory(entry.resolve(NODE_MODULES))) {
+                missCounter.increment();
+                return false;
+            }
+            linkProject(projectDir, entry);
+            copyLockFileIfAbsent(entry, projectDir);
+            touch(entry);
+            hitCounter.increment();
+            log.info("命中 node_modules 缓存，跳过 npm install：{}", projectDir);
+            return true;
+        } catch (IOException e) {
+            log.warn("链接 node_modules 缓存失败，改为重新安装：{}, 错误: {}", projectDir, e.getMessage());
+            missCounter.increment();
+            return false;
+        } finally {
+            entryLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 执行 npm install 之前调用：断开指向缓存条目的旧链接，避免安装过程修改共享缓存
+     *
+     * @param projectDir 项目根目录
+     */
+    public void detach(Path projectDir) {
+        Path link = projectDir.resolve(NODE_MODULES);
+        if (Files.isSymbolicLink(link)) {
+            try {
+                Files.delete(link);
+            } catch (IOException e) {
+                log.warn("删除 node_modules 链接失败：{}, 错误: {}", link, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * npm install 成功后调用：把项目中安装好的 node_modules 移入缓存，并替换为指向缓存条目的链接
+     * 任何一步失败都保留项目自身的 node_modules，不影响本次构建
+     *
+     * @param projectDir              项目根目录
+     * @param preInstallDependencyHash 安装前计算的依赖指纹
+     */
+    public void publish(Path projectDir, String preInstallDependencyHash) {
+        if (!enabled) {
+            return;
+        }
+        Path nodeModules = projectDir.resolve(NODE_MODULES);
+        if (Files.isSymbolicLink(nodeModules) || !Files.isDirectory(nodeModules)) {
+            return;
+        }
+        String dependencyHash = BuildFingerprintUtils.dependencyHash(projectDir);
+        Path entry = cacheRoot.resolve(dependencyHash);
+        Path staging = cacheRoot.resolve(dependencyHash + STAGING_MARKER + IdUtil.fastSimpleUUID());
+        entryLock.readLock().lock();
+        try {
+            Files.createDirectories(staging);
+            // 同一文件系统内的重命名，不复制文件
+            Files.move(nodeModules, staging.resolve(NODE_MODULES), StandardCopyOption.ATOMIC_MOVE);
+            copyLockFileIfAbsent(projectDir, staging);
+            try {
+                Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // 其他项目已经发布了相同依赖，直接复用
+                log.info("node_modules 缓存条目已存在，复用已有条目：{}", dependencyHash);
+            }
+            linkProject(projectDir, entry);
+            touch(entry);
+            if (!dependencyHash.equals(preInstallDependencyHash)) {
+                createAlias(preInstallDependencyHash, dependencyHash);
+            }
+            log.info("node_modules 已加入缓存：{}", dependencyHash);
+        } catch (IOException e) {
+            log.warn("发布 node_modules 缓存失败：{}, 错误: {}", projectDir, e.getMessage());
+            restore(staging, nodeModules);
+        } finally {
+            entryLock.readLock().unlock();
+            // 发布成功时临时目录已被重命名；复用已有条目或移回项目后，临时目录中的内容不再需要
+            if (Files.isDirectory(staging) && Files.exists(nodeModules, LinkOption.NOFOLLOW_LINKS)) {
+                FileUtil.del(staging.toFile());
+            }
+        }
+        evict();
+    }
+
+    /**
+     * 条目数超过上限时，按最近使用时间从旧到新淘汰未被任何项目链接的条目
+     */
+    void evict() {
+        entryLock.writeLock().lock();
+        try {
+            List<Path> entries = new ArrayList<>();
+            List<Path> aliases = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheRoot)) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    if (Files.isSymbolicLink(path)) {
+                        aliases.add(path);
+                    } else if (name.contains(STAGING_MARKER)) {
+                        deleteIfStale(path);
+                    } else if (Files.isDirectory(path)) {
+                        entries.add(path);
+                    }
+                }
+            }
+            if (entries.size() > maxEntries) {
+                Set<Path> linked = findLinkedEntries();
+                entries.sort(Comparator.comparing(NodeModulesCache::lastUsed));
+                int excess = entries.size() - maxEntries;
+                for (Path entry : entries) {
+                    if (excess <= 0) {
+                        break;
+                    }
+                    if (linked.contains(entry.toRealPath())) {
+                        continue;
+                    }
+                    FileUtil.del(entry.toFile());
+                    excess--;
+                    log.info("淘汰 node_modules 缓存条目：{}", entry.getFileName());
+                }
+            }
+            // 删除目标已不存在的别名
+            for (Path alias : aliases) {
+                if (!Files.exists(alias)) {
+                    Files.deleteIfExists(alias);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("淘汰 node_modules 缓存失败：{}", e.getMessage());
+        } finally {
+            entryLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 扫描项目目录，找出仍被 node_modules 链接引用的缓存条目（真实路径）
+     */
+    private Set<Path> findLinkedEntries() throws IOException {
+        Set<Path> linked = new HashSet<>();
+        if (!Files.isDirectory(projectsRoot)) {
+            return linked;
+        }
+        try (DirectoryStream<Path> projects = Files.newDirectoryStream(projectsRoot)) {
+            for (Path project : projects) {
+                Path link = project.resolve(NODE_MODULES);
+                if (!Files.isSymbolicLink(link)) {
+                    continue;
+                }
+                try {
+                    // 链接目标为 {条目}/node_modules
+                    linked.add(link.toRealPath().getParent());
+                } catch (IOException e) {
+                    // 目标已被删除的悬空链接
+                    log.debug("跳过无效的 node_modules 链接：{}", link);
+                }
+            }
+        }
+        return linked;
+    }
+
+    /**
+     * 刷新条目的最近使用时间
+     */
+    private void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.debug("更新 node_modules 缓存条目时间失败：{}, 错误: {}", entry, e.getMessage());
+        }
+    }
+
+    private static FileTime lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteIfStale(Path staging) {
+        if (lastUsed(staging).toInstant().isBefore(Instant.now().minus(STALE_STAGING_AGE))) {
+            FileUtil.del(staging.toFile());
+        }
+    }
+
+    /**
+     * 把项目的 node_modules 替换为指向缓存条目的符号链接
+     */
+    private void linkProject(Path projectDir, Path entry) throws IOException {
+        Path link = projectDir.resolve(NODE_MODULES);
+        Path target = entry.resolve(NODE_MODULES).toRealPath();
+        if (Files.isSymbolicLink(link)) {
+            if (Files.readSymbolicLink(link).equals(target)) {
+                return;
+            }
+            Files.delete(link);
+        } else if (Files.exists(link)) {
+            // 项目自带的 node_modules（如旧版本安装的结果）
+            FileUtil.del(link.toFile());
+        }
+        Files.createSymbolicLink(link, target);
+    }
+
+    /**
+     * 为安装前的依赖指纹建立别名，使同样只有 package.json 的项目也能命中缓存
+     */
+    private void createAlias(String aliasHash, String dependencyHash) {
+        Path alias = cacheRoot.resolve(aliasHash);
+        if (Files.exists(alias, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try {
+            Files.createSymbolicLink(alias, Paths.get(dependencyHash));
+        } catch (IOException e) {
+            log.debug("创建 node_modules 缓存别名失败：{}, 错误: {}", aliasHash, e.getMessage());
+        }
+    }
+
+    /**
+     * 目标目录中没有任何锁文件时，从源目录复制锁文件，保证依赖版本与缓存条目一致
+     */
+    private void copyLockFileIfAbsent(Path source, Path target) throws IOException {
+        for (String lockFileName : BuildFingerprintUtils.LOCK_FILE_NAMES) {
+            if (Files.isRegularFile(target.resolve(lockFileName))) {
+                return;
+            }
+        }
+        for (String lockFileName : BuildFingerprintUtils.LOCK_FILE_NAMES) {
+            Path lockFile = source.resolve(lockFileName);
+            if (Files.isRegularFile(lockFile)) {
+                Files.copy(lockFile, target.resolve(lockFileName));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 发布失败时把 node_modules 移回项目目录
+     */
+    private void restore(Path staging, Path nodeModules) {
+        Path staged = staging.resolve(NODE_MODULES);
+        if (Files.isDirectory(staged) && !Files.exists(nodeModules, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                Files.move(staged, nodeModules, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.error("恢复项目 node_modules 失败：{}, 错误: {}", nodeModules, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isSymbolicLinkSupported() {
+        Path probe = cacheRoot.resolve(".link-probe-" + IdUtil.fastSimpleUUID());
+        try {
+            Files.createDirectories(cacheRoot);
+            Files.createSymbolicLink(probe, cacheRoot);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        } finally {
+            try {
+                Files.deleteIfExists(probe);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.carpe.aicodemother.core.builder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vue 项目构建调度器
+ * 所有构建请求进入 FIFO 队列，由固定数量的工作线程执行，限制同时运行的 npm 进程数
+ * <p>
+ * - 同一项目已有排队中的构建时，新的请求合并到该构建上，共享同一个结果
+ * - 同一项目正在构建时，新的请求排在其后执行，保证同一目录不会并发构建
+ * - 新一轮生成开始时可以取消该项目排队中和正在执行的构建（终止 npm 进程）
+ * - 暴露排队数、运行数、排队等待耗时、构建耗时、合并和取消次数等指标
+ */
+@Slf4j
+@Component
+public class VueBuildScheduler {
+
+    @Resource
+    private VueProjectBuilder vueProjectBuilder;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 同时执行的最大构建数，默认为 CPU 核数的一半
+     */
+    @Value("${vue-builder.max-concurrent-builds:0}")
+    private int maxConcurrentBuilds;
+
+    private ExecutorService executor;
+
+    /**
+     * 排队中的构建（按项目路径），用于合并重复请求
+     */
+    private final Map<String, BuildJob> pendingJobs = new HashMap<>();
+
+    /**
+     * 正在执行的构建（按项目路径），用于串行化和取消
+     */
+    private final Map<String, BuildJob> runningJobs = new HashMap<>();
+
+    private final AtomicInteger runningCount = new AtomicInteger();
+
+    private Timer queueWaitTimer;
+
+    private Timer buildTimer;
+
+    private Counter coalescedCounter;
+
+    private Counter cancelledCounter;
+
+    private Counter freshReuseCounter;
+
+    @PostConstruct
+    public void init() {
+        if (maxConcurrentBuilds <= 0) {
+            maxConcurrentBuilds = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(maxConcurrentBuilds, runnable -> Thread.ofPlatform()
+                .name("vue-builder-" + threadIndex.incrementAndGet())
+                .daemon(true)
+                .unstarted(runnable));
+        Gauge.builder("vue_build_queue_size", this, VueBuildScheduler::pendingCount)
+                .description("排队中的 Vue 项目构建数")
+                .register(meterRegistry);
+        Gauge.builder("vue_build_running", runningCount, AtomicInteger::get)
+                .description("正在执行的 Vue 项目构建数")
+                .register(meterRegistry);
+        queueWaitTimer = Timer.builder("vue_build_queue_wait_seconds")
+                .description("Vue 项目构建排队等待耗时")
+                .register(meterRegistry);
+        buildTimer = Timer.builder("vue_build_duration_seconds")
+                .description("Vue 项目构建耗时")
+                .register(meterRegistry);
+        coalescedCounter = Counter.builder("vue_build_coalesced_total")
+                .description("合并到已排队构建的请求数")
+                .register(meterRegistry);
+        cancelledCounter = Counter.builder("vue_build_cancelled_total")
+                .description("被取消的 Vue 项目构建数")
+                .register(meterRegistry);
+        freshReuseCounter = Counter.builder("vue_build_fresh_reuse_total")
+                .description("dist 与源码一致而直接复用的次数")
+                .register(meterRegistry);
+        log.info("Vue 项目构建调度器已启动，最大并发构建数: {}", maxConcurrentBuilds);
+    }
+
+    /**
+     * 提交构建（异步）
+     *
+     * @param projectPath 项目根目录路径
+     * @return 构建结果，被取消时为 false
+     */
+    public CompletableFuture<Boolean> submit(String projectPath) {
+        return submit(projectPath, BuildProgressListener.NONE);
+    }
+
+    /**
+     * 提交构建（异步），合并到已排队构建时同样会收到该构建的进度
+     *
+     * @param projectPath 项目根目录路径
+     * @param listener    进度监听器
+     * @return 构建结果，被取消时为 false
+     */
+    public CompletableFuture<Boolean> submit(String projectPath, BuildProgressListener listener) {
+        String key = toKey(projectPath);
+        synchronized (this) {
+            BuildJob pending = pendingJobs.get(key);
+            if (pending != null) {
+                pending.listeners.add(listener);
+                coalescedCounter.increment();
+                log.info("合并到已排队的构建：{}", projectPath);
+                return pending.result;
+            }
+            BuildJob job = new BuildJob(key, projectPath);
+            job.listeners.add(listener);
+            pendingJobs.put(key, job);
+            BuildJob running = runningJobs.get(key);
+            if (running == null) {
+                dispatch(job);
+            } else {
+                // 同一项目正在构建，结束后再执行，期间到达的请求都会合并到这里
+                running.finished.whenComplete((ignored, error) -> {
+                    synchronized (this) {
+                        if (!job.cancelled) {
+                            dispatch(job);
+                        }
+                    }
+                });
+            }
+            return job.result;
+        }
+    }
+
+    /**
+     * 提交构建并等待结果
+     *
+     * @param projectPath 项目根目录路径
+     * @return 是否构建成功
+     */
+    public boolean buildAndWait(String projectPath) {
+        return buildAndWait(projectPath, BuildProgressListener.NONE);
+    }
+
+    /**
+     * 提交构建并等待结果，期间通过监听器报告进度
+     *
+     * @param projectPath 项目根目录路径
+     * @param listener    进度监听器
+     * @return 是否构建成功
+     */
+    public boolean buildAndWait(String projectPath, BuildProgressListener listener) {
+        try {
+            return submit(projectPath, listener).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.error("Vue 项目构建异常: {}", e.getCause().getMessage(), e.getCause());
+            return false;
+        }
+    }
+
+    /**
+     * 确保项目已构建：没有进行中的构建且 dist 与当前源码一致时直接复用，否则提交构建并等待
+     * （部署时使用，生成完成时通常已经构建过同一份代码）
+     *
+     * @param projectPath 项目根目录路径
+     * @return 是否构建成功
+     */
+    public boolean ensureBuilt(String projectPath) {
+        String key = toKey(projectPath);
+        boolean idle;
+        synchronized (this) {
+            idle = !pendingJobs.containsKey(key) && !runningJobs.containsKey(key);
+        }
+        if (idle && vueProjectBuilder.isDistFresh(projectPath)) {
+            freshReuseCounter.increment();
+            log.info("dist 与源码一致，复用已有构建结果：{}", projectPath);
+            return true;
+        }
+        return buildAndWait(projectPath);
+    }
+
+    /**
+     * 取消项目排队中和正在执行的构建（例如新一轮生成开始，旧代码的构建结果已无意义）
+     *
+     * @param projectPath 项目根目录路径
+     */
+    public void cancel(String projectPath) {
+        String key = toKey(projectPath);
+        synchronized (this) {
+            BuildJob pending = pendingJobs.remove(key);
+            if (pending != null) {
+                pending.cancel();
+            }
+            BuildJob running = runningJobs.get(key);
+            if (running != null) {
+                running.cancel();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 放入执行队列（调用方持有锁）
+     */
+    private void dispatch(BuildJob job) {
+        job.future = executor.submit(() -> run(job));
+    }
+
+    private void run(BuildJob job) {
+        synchronized (this) {
+            if (job.cancelled) {
+                return;
+            }
+            pendingJobs.remove(job.key, job);
+            runningJobs.put(job.key, job);
+        }
+        queueWaitTimer.record(System.nanoTime() - job.submitNanos, TimeUnit.NANOSECONDS);
+        runningCount.incrementAndGet();
+        long startNanos = System.nanoTime();
+        boolean success = false;
+        try {
+            success = vueProjectBuilder.buildProject(job.projectPath, job::publish);
+        } catch (Exception e) {
+            log.error("Vue 项目构建异常: {}", e.getMessage(), e);
+        } finally {
+            buildTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            runningCount.decrementAndGet();
+            synchronized (this) {
+                runningJobs.remove(job.key, job);
+            }
+            // 被取消的构建中断标记不应影响线程池中的下一个任务
+            Thread.interrupted();
+            job.result.complete(success && !job.cancelled);
+            job.finished.complete(null);
+        }
+    }
+
+    private synchronized int pendingCount() {
+        return pendingJobs.size();
+    }
+
+    private String toKey(String projectPath) {
+        return new File(projectPath).getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * 一次构建任务
+     */
+    private final class BuildJob {
+
+        private final String key;
+
+        private final String projectPath;
+
+        private final long submitNanos = System.nanoTime();
+
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        /**
+         * 任务执行完毕（npm 进程已退出）时完成，取消时不会提前完成
+         */
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+        /**
+         * 进度监听器（合并的请求各自注册）
+         */
+        private final List<BuildProgressListener> listeners = new CopyOnWriteArrayList<>();
+
+        private volatile Future<?> future;
+
+        private volatile boolean cancelled;
+
+        private BuildJob(String key, String projectPath) {
+            this.key = key;
+            this.projectPath = projectPath;
+        }
+
+        private void publish(BuildProgress progress) {
+            for (BuildProgressListener listener : listeners) {
+                try {
+                    listener.onProgress(progress);
+                } catch (Exception e) {
+                    log.warn("构建进度回调异常: {}", e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * 取消任务：未开始的任务不再执行，执行中的任务通过中断终止 npm 进程
+         */
+        private void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            cancelledCounter.increment();
+            log.info("取消 Vue 项目构建：{}", projectPath);
+            Future<?> current = future;
+            if (current != null) {
+                current.cancel(true);
+            }
+            result.complete(false);
+        }
+    }
+}
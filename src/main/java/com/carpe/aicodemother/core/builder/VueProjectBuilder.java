@@ -1,33 +1,74 @@
 package com.carpe.aicodemother.core.builder;
 
-import cn.hutool.core.util.RuntimeUtil;
+import cn.hutool.json.JSONUtil;
+import com.carpe.aicodemother.constant.AppConstant;
+import com.carpe.aicodemother.core.preview.PreviewFileChangeNotifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 构建 Vue 项目
+ * 依赖指纹未变化时复用共享的 node_modules 跳过 npm install，构建指纹未变化时跳过 npm run build。
+ * node_modules 可能链接到多个项目共享的缓存条目，构建时把 Vite 及其他工具的缓存目录指向项目独立的目录，避免并发构建互相写入
  */
 @Slf4j
 @Component
 public class VueProjectBuilder {
 
+    @Resource
+    private NodeModulesCache nodeModulesCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
     /**
-     * 异步构建 Vue 项目
-     *
-     * @param projectPath
+     * 每条命令保留的最近输出行数
+     */
+    @Value("${vue-builder.output-buffer-lines:200}")
+    private int outputBufferLines;
+
+    /**
+     * Vite 查找配置文件的顺序（与 Vite 默认一致）
      */
-    public void buildProjectAsync(String projectPath) {
-        Thread.ofVirtual().name("vue-builder-" + System.currentTimeMillis())
-                .start(() -> {
-                    try {
-                        buildProject(projectPath);
-                    } catch (Exception e) {
-                        log.error("异步构建 Vue 项目时发生异常: {}", e.getMessage(), e);
-                    }
-                });
+    private static final List<String> VITE_CONFIG_FILE_NAMES = List.of("vite.config.js", "vite.config.mjs",
+            "vite.config.ts", "vite.config.cjs", "vite.config.mts", "vite.config.cts");
+
+    /**
+     * 终止命令后等待整棵进程树退出的最长时间（秒）
+     */
+    private static final int PROCESS_EXIT_WAIT_SECONDS = 10;
+
+    /**
+     * 失败时写入日志的输出行数
+     */
+    private static final int FAILURE_LOG_LINES = 50;
+
+    private Counter buildSkippedCounter;
+
+    @PostConstruct
+    public void init() {
+        buildSkippedCounter = Counter.builder("vue_build_skipped_total")
+                .description("源码未变化而跳过 npm run build 的次数")
+                .register(meterRegistry);
     }
 
     /**
@@ -37,6 +78,17 @@ public class VueProjectBuilder {
      * @return 是否构建成功
      */
     public boolean buildProject(String projectPath) {
+        return buildProject(projectPath, BuildProgressListener.NONE);
+    }
+
+    /**
+     * 构建 Vue 项目，并通过监听器报告各阶段进度
+     *
+     * @param projectPath 项目根目录路径
+     * @param listener    进度监听器
+     * @return 是否构建成功
+     */
+    public boolean buildProject(String projectPath, BuildProgressListener listener) {
         File projectDir = new File(projectPath);
         if (!projectDir.exists() || !projectDir.isDirectory()) {
             log.error("项目目录不存在：{}", projectPath);
@@ -49,42 +101,223 @@ public class VueProjectBuilder {
             return false;
         }
         log.info("开始构建 Vue 项目：{}", projectPath);
-        // 执行 npm install
-        if (!executeNpmInstall(projectDir)) {
+        Path projectRoot = projectDir.toPath();
+        // 准备依赖：依赖指纹未变化时直接复用共享的 node_modules
+        if (!prepareDependencies(projectRoot, listener)) {
             log.error("npm install 执行失败：{}", projectPath);
             return false;
         }
+        if (Thread.currentThread().isInterrupted()) {
+            log.info("构建已取消：{}", projectPath);
+            return false;
+        }
+        // 源码与依赖都未变化且 dist 仍在时跳过 npm run build
+        File distDir = new File(projectDir, "dist");
+        String fingerprint = computeBuildFingerprint(projectRoot);
+        if (fingerprint != null && distDir.isDirectory() && fingerprint.equals(readDistFingerprint(projectRoot))) {
+            buildSkippedCounter.increment();
+            recordPhase(BuildPhaseEnum.BUILD, BuildProgress.Status.SKIPPED, 0, null, listener);
+            log.info("源码未变化，跳过 npm run build：{}", projectPath);
+            return true;
+        }
+        // 构建期间 dist 处于不完整状态，先清除旧指纹
+        writeDistFingerprint(projectRoot, null);
         // 执行 npm run build
-        if (!executeNpmBuild(projectDir)) {
+        CommandResult buildResult = runPhase(BuildPhaseEnum.BUILD, projectDir, listener);
+        if (!buildResult.success()) {
             log.error("npm run build 执行失败：{}", projectPath);
             return false;
         }
         // 验证 dist 目录是否生成
-        File distDir = new File(projectDir, "dist");
         if (!distDir.exists() || !distDir.isDirectory()) {
             log.error("构建完成但 dist 目录未生成：{}", projectPath);
             return false;
         }
+        writeDistFingerprint(projectRoot, fingerprint);
+        PreviewFileChangeNotifier.notifyChanged(projectRoot);
         log.info("Vue 项目构建成功，dist 目录：{}", projectPath);
         return true;
     }
 
+    /**
+     * 判断 dist 是否仍与当前源码和依赖一致（最近一次成功构建的指纹与当前指纹相同）
+     *
+     * @param projectPath 项目根目录路径
+     * @return dist 是否可以直接使用
+     */
+    public boolean isDistFresh(String projectPath) {
+        Path projectRoot = Path.of(projectPath);
+        if (!Files.isDirectory(projectRoot.resolve("dist")) || !Files.isRegularFile(projectRoot.resolve("package.json"))) {
+            return false;
+        }
+        String fingerprint = computeBuildFingerprint(projectRoot);
+        return fingerprint != null && fingerprint.equals(readDistFingerprint(projectRoot));
+    }
+
+    /**
+     * 准备项目依赖：优先链接共享缓存，未命中时执行 npm install 并把结果加入缓存
+     *
+     * @param projectRoot 项目根目录
+     * @param listener    进度监听器
+     * @return 依赖是否就绪
+     */
+    private boolean prepareDependencies(Path projectRoot, BuildProgressListener listener) {
+        String dependencyHash = BuildFingerprintUtils.dependencyHash(projectRoot);
+        if (nodeModulesCache.linkIfCached(projectRoot, dependencyHash)) {
+            recordPhase(BuildPhaseEnum.INSTALL, BuildProgress.Status.SKIPPED, 0, null, listener);
+            return true;
+        }
+        nodeModulesCache.detach(projectRoot);
+        if (!runPhase(BuildPhaseEnum.INSTALL, projectRoot.toFile(), listener).success()) {
+            return false;
+        }
+        nodeModulesCache.publish(projectRoot, dependencyHash);
+        return true;
+    }
+
+    /**
+     * 执行一个构建阶段的命令，报告开始/结束进度并记录耗时
+     */
+    private CommandResult runPhase(BuildPhaseEnum phase, File projectDir, BuildProgressListener listener) {
+        listener.onProgress(new BuildProgress(phase, BuildProgress.Status.STARTED, 0, null));
+        long startNanos = System.nanoTime();
+        CommandResult result = switch (phase) {
+            case INSTALL -> executeNpmInstall(projectDir);
+            case BUILD -> executeNpmBuild(projectDir);
+        };
+        long durationNanos = System.nanoTime() - startNanos;
+        if (result.success()) {
+            recordPhase(phase, BuildProgress.Status.SUCCEEDED, durationNanos, null, listener);
+        } else {
+            recordPhase(phase, BuildProgress.Status.FAILED, durationNanos, result.failureReason(), listener);
+        }
+        return result;
+    }
+
+    /**
+     * 记录阶段耗时指标并通知监听器
+     */
+    private void recordPhase(BuildPhaseEnum phase, BuildProgress.Status status, long durationNanos,
+                             String detail, BuildProgressListener listener) {
+        Timer.builder("vue_build_phase_duration_seconds")
+                .description("Vue 项目构建各阶段耗时")
+                .tag("phase", phase.getValue())
+                .tag("result", status.name().toLowerCase())
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        try {
+            listener.onProgress(new BuildProgress(phase, status, TimeUnit.NANOSECONDS.toMillis(durationNanos), detail));
+        } catch (Exception e) {
+            log.warn("构建进度回调异常: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 计算构建指纹，失败时返回 null（不跳过构建）
+     */
+    private String computeBuildFingerprint(Path projectRoot) {
+        try {
+            return BuildFingerprintUtils.buildFingerprint(
+                    BuildFingerprintUtils.dependencyHash(projectRoot),
+                    BuildFingerprintUtils.sourceTreeHash(projectRoot));
+        } catch (Exception e) {
+            log.warn("计算构建指纹失败：{}, 错误: {}", projectRoot, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取最近一次成功构建的指纹
+     */
+    private String readDistFingerprint(Path projectRoot) {
+        Path file = projectRoot.resolve(BuildFingerprintUtils.DIST_FINGERPRINT_FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return Files.readString(file).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 记录构建指纹，fingerprint 为 null 时删除
+     */
+    private void writeDistFingerprint(Path projectRoot, String fingerprint) {
+        Path file = projectRoot.resolve(BuildFingerprintUtils.DIST_FINGERPRINT_FILE_NAME);
+        try {
+            if (fingerprint == null) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.writeString(file, fingerprint);
+            }
+        } catch (IOException e) {
+            log.warn("写入构建指纹失败：{}, 错误: {}", file, e.getMessage());
+        }
+    }
+
     /**
      * 执行 npm install 命令
      */
-    private boolean executeNpmInstall(File projectDir) {
+    private CommandResult executeNpmInstall(File projectDir) {
         log.info("执行 npm install...");
-        String command = String.format("%s install", buildCommand("npm"));
-        return executeCommand(projectDir, command, 300); // 5分钟超时
+        List<String> command = List.of(buildCommand("npm"), "install");
+        return executeCommand(projectDir, command, Map.of(), 300); // 5分钟超时
     }
 
     /**
      * 执行 npm run build 命令
+     * 通过包装配置把 Vite 的 cacheDir 指向项目独立的缓存目录（默认位于 node_modules/.vite），
+     * 并通过 CACHE_DIR 环境变量让使用 find-cache-dir 的工具（默认位于 node_modules/.cache）同样写到该目录
      */
-    private boolean executeNpmBuild(File projectDir) {
+    private CommandResult executeNpmBuild(File projectDir) {
         log.info("执行 npm run build...");
-        String command = String.format("%s run build", buildCommand("npm"));
-        return executeCommand(projectDir, command, 180); // 3分钟超时
+        List<String> command = new ArrayList<>(List.of(buildCommand("npm"), "run", "build"));
+        Path buildCacheDir = Paths.get(AppConstant.VITE_BUILD_CACHE_DIR, projectDir.getName());
+        Path wrapperConfig = writeViteWrapperConfig(projectDir.toPath(), buildCacheDir);
+        if (wrapperConfig != null) {
+            command.addAll(List.of("--", "--config", wrapperConfig.toString()));
+        }
+        Map<String, String> environment = Map.of("CACHE_DIR", buildCacheDir.resolve("cache").toString());
+        return executeCommand(projectDir, command, environment, 180); // 3分钟超时
+    }
+
+    /**
+     * 生成包装 Vite 配置：加载项目自身的配置后覆盖 cacheDir
+     *
+     * @param projectRoot   项目根目录
+     * @param buildCacheDir 项目独立的构建缓存目录
+     * @return 包装配置文件路径，生成失败时返回 null（使用项目自身的配置构建）
+     */
+    private Path writeViteWrapperConfig(Path projectRoot, Path buildCacheDir) {
+        String viteCacheDir = JSONUtil.quote(toUnixPath(buildCacheDir.resolve("vite").toAbsolutePath()));
+        String content = VITE_CONFIG_FILE_NAMES.stream()
+                .map(projectRoot::resolve)
+                .filter(Files::isRegularFile)
+                .findFirst()
+                .map(userConfig -> String.format("""
+                        import userConfig from %s;
+
+                        export default async (env) => {
+                          const config = typeof userConfig === 'function' ? await userConfig(env) : await userConfig;
+                          return { ...config, cacheDir: %s };
+                        };
+                        """, JSONUtil.quote(toUnixPath(userConfig.toAbsolutePath())), viteCacheDir))
+                .orElse(String.format("export default { cacheDir: %s };%n", viteCacheDir));
+        Path wrapperConfig = buildCacheDir.resolve("vite.config.mjs");
+        try {
+            Files.createDirectories(buildCacheDir);
+            Files.writeString(wrapperConfig, content);
+            return wrapperConfig;
+        } catch (IOException e) {
+            log.warn("生成 Vite 包装配置失败，使用项目自身的配置：{}, 错误: {}", projectRoot, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String toUnixPath(Path path) {
+        return path.toString().replace('\\', '/');
     }
 
     /**
@@ -111,39 +344,147 @@ public class VueProjectBuilder {
 
     /**
      * 执行命令
+     * 标准输出与错误输出合并后由单独的虚拟线程持续读取到环形缓冲区，
+     * 避免输出较多时管道写满导致 npm 阻塞直到超时
      *
      * @param workingDir     工作目录
-     * @param command        命令字符串
+     * @param commandArgs    命令及参数
+     * @param environment    额外的环境变量
      * @param timeoutSeconds 超时时间（秒）
-     * @return 是否执行成功
+     * @return 执行结果
      */
-    private boolean executeCommand(File workingDir, String command, int timeoutSeconds) {
+    private CommandResult executeCommand(File workingDir, List<String> commandArgs, Map<String, String> environment,
+                                         int timeoutSeconds) {
+        String command = String.join(" ", commandArgs);
+        BuildOutputBuffer output = new BuildOutputBuffer(outputBufferLines);
+        Process process = null;
+        Thread drainThread = null;
         try {
             log.info("在目录 {} 中执行命令: {}", workingDir.getAbsolutePath(), command);
-            Process process = RuntimeUtil.exec(
-                    null,
-                    workingDir,
-                    command.split("\\s+") // 命令分割为数组
-            );
+            ProcessBuilder processBuilder = new ProcessBuilder(commandArgs)
+                    .directory(workingDir)
+                    .redirectErrorStream(true);
+            processBuilder.environment().putAll(environment);
+            process = processBuilder.start();
+            drainThread = startDrain(process, output);
             // 等待进程完成，设置超时
             boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
             if (!finished) {
                 log.error("命令执行超时（{}秒），强制终止进程", timeoutSeconds);
-                process.destroyForcibly();
-                return false;
+                destroyProcessTree(process);
+                drainThread.join(TimeUnit.SECONDS.toMillis(1));
+                return failure(command, "执行超时（" + timeoutSeconds + "秒）", output);
             }
+            // 进程退出后等待剩余输出读取完毕
+            drainThread.join(TimeUnit.SECONDS.toMillis(1));
             int exitCode = process.exitValue();
             if (exitCode == 0) {
                 log.info("命令执行成功: {}", command);
-                return true;
+                return new CommandResult(true, null);
             } else {
-                log.error("命令执行失败，退出码: {}", exitCode);
-                return false;
+                return failure(command, "退出码 " + exitCode, output);
+            }
+        } catch (InterruptedException e) {
+            // 构建被取消：终止 npm 进程并保留中断标记
+            log.info("命令被中断，强制终止进程: {}", command);
+            if (process != null) {
+                destroyProcessTree(process);
             }
+            Thread.currentThread().interrupt();
+            return new CommandResult(false, "构建已取消");
         } catch (Exception e) {
             log.error("执行命令失败: {}, 错误信息: {}", command, e.getMessage());
-            return false;
+            // 异常信息中可能带有服务器路径，只在日志中保留
+            return new CommandResult(false, "命令启动失败");
+        } finally {
+            // 进程树退出后管道写端全部关闭，读取线程会读到 EOF 退出；仍未退出时关闭读端兜底
+            if (drainThread != null && drainThread.isAlive() && process != null) {
+                try {
+                    process.getInputStream().close();
+                } catch (IOException e) {
+                    log.debug("关闭命令输出流失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 强制终止 npm 及其启动的所有子进程（node、vite、esbuild 等），并等待整棵进程树退出，
+     * 避免调用方释放构建槽位后残留的子进程仍在写 dist 或占用 CPU
+     * 先终止子进程再终止 npm：父进程退出后子进程会被重新挂到 init 下，无法再通过 descendants() 找到
+     */
+    private void destroyProcessTree(Process process) {
+        List<ProcessHandle> killed = new ArrayList<>();
+        // 终止过程中可能还有新启动的子进程，多收集几轮
+        for (int round = 0; round < 3; round++) {
+            List<ProcessHandle> descendants = process.descendants().filter(ProcessHandle::isAlive).toList();
+            if (descendants.isEmpty()) {
+                break;
+            }
+            descendants.forEach(ProcessHandle::destroyForcibly);
+            killed.addAll(descendants);
+        }
+        process.destroyForcibly();
+        killed.add(process.toHandle());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PROCESS_EXIT_WAIT_SECONDS);
+        boolean interrupted = false;
+        for (ProcessHandle handle : killed) {
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                log.warn("等待进程退出超时（{}秒），仍在运行的进程: {}", PROCESS_EXIT_WAIT_SECONDS, handle.pid());
+                break;
+            }
+            try {
+                handle.onExit().get(remainingNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // 继续等待剩余进程退出，结束后恢复中断标记
+                interrupted = true;
+            } catch (Exception e) {
+                log.warn("等待进程退出失败: {}, 错误: {}", handle.pid(), e.getMessage());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * 启动输出读取线程，进程结束（或被终止）后输出流关闭，线程随之退出
+     */
+    private Thread startDrain(Process process, BuildOutputBuffer output) {
+        return Thread.ofVirtual().name("vue-builder-output").start(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line);
+                    log.debug("[npm] {}", line);
+                }
+            } catch (IOException e) {
+                // 进程被强制终止时流会被关闭
+                log.debug("读取命令输出结束: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 构造失败结果，并把最近的输出写入日志
+     * npm 输出中带有服务器上的绝对路径，只写入日志，返回给前端的只有简短原因
+     */
+    private CommandResult failure(String command, String reason, BuildOutputBuffer output) {
+        List<String> tail = output.tail(FAILURE_LOG_LINES);
+        log.error("命令执行失败: {}, 原因: {}, 最近 {} 行输出（共 {} 行）:\n{}",
+                command, reason, tail.size(), output.getTotalLines(), String.join("\n", tail));
+        return new CommandResult(false, reason);
+    }
+
+    /**
+     * 命令执行结果
+     *
+     * @param success       是否成功
+     * @param failureReason 简短的失败原因（不含命令输出，可以展示给用户），成功时为 null
+     */
+    private record CommandResult(boolean success, String failureReason) {
+    }
+
+}
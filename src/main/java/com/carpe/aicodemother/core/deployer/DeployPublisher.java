@@ -0,0 +1,238 @@
+package com.carpe.aicodemother.core.deployer;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.carpe.aicodemother.constant.AppConstant;
+import com.carpe.aicodemother.core.saver.StreamingCodeFileWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * 应用部署发布器（版本化发布）
+ * 每次部署生成一个编号递增的发布目录 .releases/{deployKey}/{n}，部署目录 CODE_DEPLOY_ROOT_DIR/{deployKey}
+ * 是指向当前发布的符号链接（即 current 指针，对外访问路径保持不变）：
+ * <p>
+ * - 发布目录中的文件是源目录文件的硬链接，不复制文件内容（跨文件系统等无法硬链接时退化为复制）
+ * - 发布目录先在临时目录中组装，完成后再重命名为 {n}，编号目录一定是完整的
+ * - 通过重命名一个新的符号链接覆盖旧链接完成切换，访问者不会读到新旧混合的文件
+ * - 只保留最近若干个发布，回滚只需把链接切回旧的发布目录
+ * - 源目录中的文件都是"写临时文件再重命名"的方式更新（dist 则由构建工具清空后重建），不会原地修改，
+ *   因此硬链接出去的发布文件内容保持不变
+ */
+@Slf4j
+@Component
+public class DeployPublisher {
+
+    /**
+     * 发布目录的根目录名（位于部署根目录下）
+     */
+    public static final String RELEASES_DIR_NAME = ".releases";
+
+    /**
+     * 每个应用保留的发布数（包括当前发布）
+     */
+    @Value("${code.deploy-release-retention:5}")
+    private int releaseRetention = 5;
+
+    private Path deployRoot = Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR);
+
+    /**
+     * 把源目录发布为 deployKey 的一个新版本并切换为当前版本
+     *
+     * @param sourceDir 源目录（静态文件或 dist 目录）
+     * @param deployKey 部署标识
+     * @return 新发布的版本号
+     * @throws IOException 发布失败
+     */
+    public synchronized int publish(Path sourceDir, String deployKey) throws IOException {
+        Path releasesDir = getReleasesDir(deployKey);
+        Files.createDirectories(releasesDir);
+        List<Integer> releases = listReleases(deployKey);
+        int releaseNumber = releases.isEmpty() ? 1 : releases.getLast() + 1;
+        Path staging = releasesDir.resolve(releaseNumber + ".tmp-" + IdUtil.fastSimpleUUID());
+        Path release = releasesDir.resolve(String.valueOf(releaseNumber));
+        try {
+            int copied = linkTree(sourceDir, staging);
+            Files.move(staging, release, StandardCopyOption.ATOMIC_MOVE);
+            swap(deployRoot.resolve(deployKey), release);
+            log.info("应用已发布：{} -> 版本 {}，复制文件数: {}", deployKey, releaseNumber, copied);
+        } finally {
+            if (Files.exists(staging)) {
+                FileUtil.del(staging.toFile());
+            }
+        }
+        pruneReleases(deployKey, releaseNumber);
+        return releaseNumber;
+    }
+
+    /**
+     * 回滚到当前版本之前最近的一个发布
+     *
+     * @param deployKey 部署标识
+     * @return 回滚后的版本号，没有更早的发布时返回 null
+     * @throws IOException 切换失败
+     */
+    public synchronized Integer rollback(String deployKey) throws IOException {
+        Integer current = getCurrentRelease(deployKey);
+        Integer target = null;
+        for (Integer releaseNumber : listReleases(deployKey)) {
+            if (current == null || releaseNumber < current) {
+                target = releaseNumber;
+            }
+        }
+        if (target == null || target.equals(current)) {
+            return null;
+        }
+        swap(deployRoot.resolve(deployKey), getReleasesDir(deployKey).resolve(String.valueOf(target)));
+        log.info("应用已回滚：{} -> 版本 {}", deployKey, target);
+        return target;
+    }
+
+    /**
+     * 获取当前发布的版本号
+     *
+     * @param deployKey 部署标识
+     * @return 版本号，未发布或不是版本化发布时返回 null
+     */
+    public Integer getCurrentRelease(String deployKey) {
+        Path link = deployRoot.resolve(deployKey);
+        if (!Files.isSymbolicLink(link)) {
+            return null;
+        }
+        try {
+            Path target = link.getParent().resolve(Files.readSymbolicLink(link)).normalize();
+            if (!Objects.equals(target.getParent(), getReleasesDir(deployKey).normalize())) {
+                return null;
+            }
+            return parseReleaseNumber(target.getFileName().toString());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 列出已有的发布版本号（升序）
+     *
+     * @param deployKey 部署标识
+     * @return 版本号列表
+     * @throws IOException 读取目录失败
+     */
+    public List<Integer> listReleases(String deployKey) throws IOException {
+        Path releasesDir = getReleasesDir(deployKey);
+        List<Integer> releases = new ArrayList<>();
+        if (!Files.isDirectory(releasesDir)) {
+            return releases;
+        }
+        try (Stream<Path> stream = Files.list(releasesDir)) {
+            stream.map(path -> parseReleaseNumber(path.getFileName().toString()))
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .forEach(releases::add);
+        }
+        return releases;
+    }
+
+    /**
+     * 删除超出保留数量的旧发布（当前发布始终保留），以及异常中断遗留的非编号目录
+     */
+    private void pruneReleases(String deployKey, int currentRelease) {
+        try {
+            try (Stream<Path> stream = Files.list(getReleasesDir(deployKey))) {
+                stream.filter(path -> parseReleaseNumber(path.getFileName().toString()) == null)
+                        .forEach(path -> FileUtil.del(path.toFile()));
+            }
+            List<Integer> releases = listReleases(deployKey);
+            int excess = releases.size() - Math.max(1, releaseRetention);
+            for (int i = 0; i < releases.size() && excess > 0; i++) {
+                int releaseNumber = releases.get(i);
+                if (releaseNumber == currentRelease) {
+                    continue;
+                }
+                // 正在读取旧文件的请求持有已打开的文件，删除不影响其完成
+                FileUtil.del(getReleasesDir(deployKey).resolve(String.valueOf(releaseNumber)).toFile());
+                excess--;
+            }
+        } catch (IOException e) {
+            log.warn("清理旧发布失败：{}, 错误: {}", deployKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 用硬链接在目标目录中重建源目录的文件树
+     *
+     * @return 因无法硬链接而复制的文件数
+     */
+    private int linkTree(Path sourceDir, Path targetDir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(sourceDir)) {
+            files = stream.filter(Files::isRegularFile)
+                    // 跳过流式写入中尚未提交的临时文件
+                    .filter(path -> !path.getFileName().toString().endsWith(StreamingCodeFileWriter.TEMP_FILE_SUFFIX))
+                    .toList();
+        }
+        Files.createDirectories(targetDir);
+        int copied = 0;
+        boolean hardLinkSupported = true;
+        for (Path file : files) {
+            Path target = targetDir.resolve(sourceDir.relativize(file).toString());
+            Files.createDirectories(target.getParent());
+            if (hardLinkSupported) {
+                try {
+                    Files.createLink(target, file);
+                    continue;
+                } catch (FileSystemException | UnsupportedOperationException e) {
+                    log.warn("无法创建硬链接，改为复制文件：{}, 错误: {}", file, e.getMessage());
+                    hardLinkSupported = false;
+                }
+            }
+            Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+            copied++;
+        }
+        return copied;
+    }
+
+    /**
+     * 原子地把部署链接切换到指定的发布目录
+     */
+    private void swap(Path link, Path release) throws IOException {
+        Path tempLink = link.resolveSibling("." + link.getFileName() + ".swap-" + IdUtil.fastSimpleUUID());
+        // 使用相对路径，部署根目录整体迁移后链接仍然有效
+        Files.createSymbolicLink(tempLink, link.getParent().relativize(release));
+        try {
+            if (Files.isDirectory(link, LinkOption.NOFOLLOW_LINKS)) {
+                // 旧版本复制出来的真实目录无法被原子替换，只能先删除（仅在首次迁移时发生）
+                FileUtil.del(link.toFile());
+            }
+            Files.move(tempLink, link, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempLink);
+        }
+    }
+
+    private Path getReleasesDir(String deployKey) {
+        return deployRoot.resolve(RELEASES_DIR_NAME).resolve(deployKey);
+    }
+
+    /**
+     * 解析发布目录名中的版本号，不是纯数字（如临时目录）时返回 null
+     */
+    private Integer parseReleaseNumber(String name) {
+        if (name.isEmpty() || name.length() > 9 || !name.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return Integer.parseInt(name);
+    }
+}
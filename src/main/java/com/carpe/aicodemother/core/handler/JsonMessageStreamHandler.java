@@ -6,7 +6,6 @@ import cn.hutool.json.JSONUtil;
 
 import com.carpe.aicodemother.ai.model.message.*;
 import com.carpe.aicodemother.ai.tools.BaseTool;
-import com.carpe.aicodemother.core.builder.VueProjectBuilder;
 import com.carpe.aicodemother.model.entity.User;
 import com.carpe.aicodemother.model.enums.ChatHistoryMessageTypeEnum;
 import com.carpe.aicodemother.service.ChatHistoryService;
@@ -32,7 +31,7 @@ public class JsonMessageStreamHandler {
 
     /**
      * 处理 TokenStream（VUE_PROJECT）
-     * 解析 JSON 消息并重组为完整的响应格式
+     * 根据消息类型重组为完整的响应格式
      *
      * @param originFlux         原始流
      * @param chatHistoryService 聊天历史服务
@@ -40,7 +39,7 @@ public class JsonMessageStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         // 收集数据用于生成后端记忆格式
@@ -48,9 +47,9 @@ public class JsonMessageStreamHandler {
         // 用于跟踪已经见过的工具ID，判断是否是第一次调用
         Set<String> seenToolIds = new HashSet<>();
         return originFlux
-                .map(chunk -> {
-                    // 解析每个 JSON 消息块
-                    return handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds);
+                .map(streamMessage -> {
+                    // 处理每个消息
+                    return handleStreamMessage(streamMessage, chatHistoryStringBuilder, seenToolIds);
                 })
                 .filter(StrUtil::isNotEmpty) // 过滤空字串
                 .doOnComplete(() -> {
@@ -66,22 +65,17 @@ public class JsonMessageStreamHandler {
     }
 
     /**
-     * 解析并收集 TokenStream 数据
+     * 处理并收集 TokenStream 数据
      */
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
-        // 解析 JSON
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
-        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
-        switch (typeEnum) {
-            case AI_RESPONSE -> {
-                AiResponseMessage aiMessage = JSONUtil.toBean(chunk, AiResponseMessage.class);
+    private String handleStreamMessage(StreamMessage streamMessage, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
+        return switch (streamMessage) {
+            case AiResponseMessage aiMessage -> {
                 String data = aiMessage.getData();
                 // 直接拼接响应
                 chatHistoryStringBuilder.append(data);
-                return data;
+                yield data;
             }
-            case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
+            case ToolRequestMessage toolRequestMessage -> {
                 String toolId = toolRequestMessage.getId();
                 String toolName = toolRequestMessage.getName();
                 // 检查是否是第一次看到这个工具 ID
@@ -91,14 +85,13 @@ public class JsonMessageStreamHandler {
                     // 根据工具名称获取工具实例
                     BaseTool tool = toolManager.getTool(toolName);
                     // 返回格式化的工具调用信息
-                    return tool.generateToolRequestResponse();
+                    yield tool.generateToolRequestResponse();
                 } else {
                     // 不是第一次调用这个工具，直接返回空
-                    return "";
+                    yield "";
                 }
             }
-            case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+            case ToolExecutedMessage toolExecutedMessage -> {
                 JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
                 // 根据工具名称获取工具实例
                 String toolName = toolExecutedMessage.getName();
@@ -107,12 +100,29 @@ public class JsonMessageStreamHandler {
                 // 输出前端和要持久化的内容
                 String output = String.format("\n\n%s\n\n", result);
                 chatHistoryStringBuilder.append(output);
-                return output;
+                yield output;
             }
-            default -> {
-                log.error("不支持的消息类型: {}", typeEnum);
-                return "";
-            }
-        }
+            // 构建进度只推送给前端，不写入对话历史
+            case BuildProgressMessage buildProgressMessage -> formatBuildProgress(buildProgressMessage);
+        };
+    }
+
+    /**
+     * 格式化构建进度
+     */
+    private String formatBuildProgress(BuildProgressMessage message) {
+        String phaseText = message.getPhaseText();
+        String seconds = String.format("%.1f", message.getDurationMs() / 1000.0);
+        return switch (message.getStatus()) {
+            case "started" -> String.format("\n\n> [构建进度] %s中...\n\n", phaseText);
+            case "succeeded" -> String.format("\n\n> [构建进度] %s完成，耗时 %s 秒\n\n", phaseText, seconds);
+            case "skipped" -> String.format("\n\n> [构建进度] %s已跳过（命中缓存）\n\n", phaseText);
+            // 失败原因只是简短说明，构建输出只保留在服务端日志中
+            case "failed" -> StrUtil.isBlank(message.getDetail())
+                    ? String.format("\n\n> [构建进度] %s失败，耗时 %s 秒\n\n", phaseText, seconds)
+                    : String.format("\n\n> [构建进度] %s失败（%s），耗时 %s 秒\n\n", phaseText,
+                    message.getDetail(), seconds);
+            default -> "";
+        };
     }
-}
\ No newline at end of file
+}
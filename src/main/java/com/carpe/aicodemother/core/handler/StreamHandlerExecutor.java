@@ -1,6 +1,8 @@
 package com.carpe.aicodemother.core.handler;
 
 
+import com.carpe.aicodemother.ai.model.message.AiResponseMessage;
+import com.carpe.aicodemother.ai.model.message.StreamMessage;
 import com.carpe.aicodemother.model.entity.User;
 import com.carpe.aicodemother.model.enums.CodeGenTypeEnum;
 import com.carpe.aicodemother.service.ChatHistoryService;
@@ -12,8 +14,9 @@ import reactor.core.publisher.Flux;
 /**
  * 流处理器执行器
  * 根据代码生成类型创建合适的流处理器：
- * 1. 传统的 Flux<String> 流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
+ * 1. 传统的文本流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
  * 2. TokenStream 格式的复杂流（VUE_PROJECT） -> JsonMessageStreamHandler
+ * 两者的输入均为类型化的 Flux<StreamMessage>，不经过 JSON 中转
  */
 @Slf4j
 @Component
@@ -32,14 +35,16 @@ public class StreamHandlerExecutor {
      * @param codeGenType        代码生成类型
      * @return 处理后的流
      */
-    public Flux<String> doExecute(Flux<String> originFlux,
+    public Flux<String> doExecute(Flux<StreamMessage> originFlux,
                                   ChatHistoryService chatHistoryService,
                                   long appId, User loginUser, CodeGenTypeEnum codeGenType) {
         return switch (codeGenType) {
             case VUE_PROJECT -> // 使用注入的组件实例
                     jsonMessageStreamHandler.handle(originFlux, chatHistoryService, appId, loginUser);
             case HTML, MULTI_FILE -> // 简单文本处理器不需要依赖注入
-                    new SimpleTextStreamHandler().handle(originFlux, chatHistoryService, appId, loginUser);
+                    new SimpleTextStreamHandler().handle(
+                            originFlux.ofType(AiResponseMessage.class).map(AiResponseMessage::getData),
+                            chatHistoryService, appId, loginUser);
         };
     }
 }
\ No newline at end of file
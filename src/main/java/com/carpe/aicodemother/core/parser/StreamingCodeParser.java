@@ -0,0 +1,339 @@
+package com.carpe.aicodemother.core.parser;
+
+import com.carpe.aicodemother.ai.model.MultiFileCodeResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 流式代码解析器（状态机）
+ * 在 AI 流式输出的过程中逐块识别 ```html / ```css / ```js 代码块，
+ * 代码块内容到达时回调内容处理器（例如追加写入临时文件），
+ * 每个代码块闭合后立即回调完成处理器（例如原子发布文件），无需等待完整响应后再做正则全文匹配
+ * <p>
+ * 解析规则与 {@link HtmlCodeParser}、{@link MultiFileCodeParser} 保持一致：
+ * - 同一语言只取第一个代码块
+ * - 代码块在遇到下一个 ``` 时结束
+ * - 无法识别的 ``` 标记（未知语言、语言标记过长等）按普通文本处理，不影响后续代码块的识别
+ * - 仅在开启兜底时（单文件 HTML 模式），没有任何 html 代码块则将全部内容作为 HTML（兼容 HtmlCodeParser 的兜底逻辑），
+ * 多文件模式与 MultiFileCodeParser 一致，不做兜底
+ * <p>
+ * 注意：实例有状态且非线程安全，每个流使用一个新实例
+ */
+@Slf4j
+public class StreamingCodeParser implements CodeParser<MultiFileCodeResult> {
+
+    public static final String LANGUAGE_HTML = "html";
+    public static final String LANGUAGE_CSS = "css";
+    public static final String LANGUAGE_JS = "js";
+
+    private static final String FENCE = "```";
+
+    /**
+     * 代码块语言标记的最大长度，超过则视为普通文本中的反引号
+     */
+    private static final int MAX_HEADER_LENGTH = 32;
+
+    /**
+     * 解析状态
+     */
+    private enum State {
+        // 代码块之外的普通文本
+        TEXT,
+        // 已读到 ```，正在读取语言标记
+        HEADER,
+        // 在需要提取的代码块内
+        CODE,
+        // 在不需要提取的代码块内（重复语言）
+        SKIP
+    }
+
+    /**
+     * 代码块内容回调：参数为 (语言, 新到达的代码片段)
+     */
+    private final BiConsumer<String, String> contentHandler;
+
+    /**
+     * 代码块完成回调：参数为 (语言, 代码内容)
+     */
+    private final BiConsumer<String, String> blockHandler;
+
+    private final MultiFileCodeResult result = new MultiFileCodeResult();
+
+    private final Set<String> completedLanguages = new HashSet<>();
+
+    private final StringBuilder headerBuilder = new StringBuilder();
+
+    private final StringBuilder codeBuilder = new StringBuilder();
+
+    /**
+     * 兜底内容：只在开启兜底且尚未出现 html 代码块时保留，出现后立即释放
+     */
+    private StringBuilder fallbackBuilder;
+
+    private State state = State.TEXT;
+
+    private String currentLanguage;
+
+    private int backtickCount = 0;
+
+    /**
+     * 当前代码块中已回调给内容处理器的长度
+     */
+    private int emittedLength = 0;
+
+    private boolean finished = false;
+
+    public StreamingCodeParser() {
+        this((language, code) -> {
+        });
+    }
+
+    public StreamingCodeParser(BiConsumer<String, String> blockHandler) {
+        this((language, text) -> {
+        }, blockHandler);
+    }
+
+    public StreamingCodeParser(BiConsumer<String, String> contentHandler, BiConsumer<String, String> blockHandler) {
+        this(contentHandler, blockHandler, true);
+    }
+
+    /**
+     * @param contentHandler 代码块内容回调
+     * @param blockHandler   代码块完成回调
+     * @param htmlFallback   没有 html 代码块时是否将全部内容作为 HTML（仅单文件 HTML 模式需要）
+     */
+    public StreamingCodeParser(BiConsumer<String, String> contentHandler, BiConsumer<String, String> blockHandler,
+                               boolean htmlFallback) {
+        this.contentHandler = contentHandler;
+        this.blockHandler = blockHandler;
+        this.fallbackBuilder = htmlFallback ? new StringBuilder() : null;
+    }
+
+    /**
+     * 一次性解析完整内容（与其他解析器行为一致）
+     */
+    @Override
+    public MultiFileCodeResult parseCode(String codeContent) {
+        append(codeContent);
+        finish();
+        return result;
+    }
+
+    /**
+     * 追加一段流式内容
+     *
+     * @param chunk 流式片段
+     */
+    public void append(String chunk) {
+        if (chunk == null || finished) {
+            return;
+        }
+        for (int i = 0; i < chunk.length(); i++) {
+            accept(chunk.charAt(i));
+        }
+        emitContent();
+    }
+
+    /**
+     * 流结束：处理未闭合的代码块及兜底逻辑
+     *
+     * @return 解析结果
+     */
+    public MultiFileCodeResult finish() {
+        if (finished) {
+            return result;
+        }
+        finished = true;
+        // 未闭合的代码块，与正则行为保持一致：不提取
+        if (result.getHtmlCode() == null && fallbackBuilder != null) {
+            // 兜底：没有找到 html 代码块，将全部文本作为 HTML
+            if (state == State.HEADER) {
+                appendTo(fallbackBuilder, FENCE + headerBuilder);
+            }
+            appendTo(fallbackBuilder, takePendingBackticks());
+            String fallback = fallbackBuilder.toString().trim();
+            if (!fallback.isEmpty()) {
+                completeBlock(LANGUAGE_HTML, fallback);
+            }
+        }
+        fallbackBuilder = null;
+        codeBuilder.setLength(0);
+        headerBuilder.setLength(0);
+        return result;
+    }
+
+    /**
+     * 获取当前已解析出的结果
+     */
+    public MultiFileCodeResult getResult() {
+        return result;
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case TEXT -> acceptText(c);
+            case HEADER -> acceptHeader(c);
+            case CODE, SKIP -> acceptCode(c);
+        }
+    }
+
+    private void acceptText(char c) {
+        if (c == '`') {
+            backtickCount++;
+            if (backtickCount == FENCE.length()) {
+                backtickCount = 0;
+                headerBuilder.setLength(0);
+                state = State.HEADER;
+            }
+            return;
+        }
+        appendTo(fallbackBuilder, takePendingBackticks() + c);
+    }
+
+    private void acceptHeader(char c) {
+        if (c == '`') {
+            // 语言标记中不会出现反引号，说明前面的 ``` 只是普通文本，交给文本状态重新识别
+            abandonHeader();
+            acceptText(c);
+            return;
+        }
+        if (c == '\n') {
+            String language = normalizeLanguage(headerBuilder.toString().trim());
+            appendTo(fallbackBuilder, FENCE + headerBuilder + c);
+            headerBuilder.setLength(0);
+            codeBuilder.setLength(0);
+            emittedLength = 0;
+            if (language != null && !completedLanguages.contains(language)) {
+                currentLanguage = language;
+                state = State.CODE;
+                if (LANGUAGE_HTML.equals(language)) {
+                    // 已经找到 html 代码块，不再需要兜底内容
+                    fallbackBuilder = null;
+                }
+            } else if (language != null) {
+                // 重复的语言，只取第一个代码块
+                state = State.SKIP;
+            } else {
+                // 未知语言：按普通文本处理，后续的 ``` 仍可作为代码块开头
+                state = State.TEXT;
+            }
+            return;
+        }
+        headerBuilder.append(c);
+        if (headerBuilder.length() > MAX_HEADER_LENGTH) {
+            // 语言标记过长，说明不是合法的代码块开头
+            abandonHeader();
+        }
+    }
+
+    /**
+     * 放弃当前的 ``` 标记，已读取的内容按普通文本处理
+     */
+    private void abandonHeader() {
+        appendTo(fallbackBuilder, FENCE + headerBuilder);
+        headerBuilder.setLength(0);
+        state = State.TEXT;
+    }
+
+    private void acceptCode(char c) {
+        if (c == '`') {
+            backtickCount++;
+            if (backtickCount == FENCE.length()) {
+                backtickCount = 0;
+                closeBlock();
+            }
+            return;
+        }
+        String text = takePendingBackticks() + c;
+        if (state == State.CODE) {
+            codeBuilder.append(text);
+        }
+        appendTo(fallbackBuilder, text);
+    }
+
+    private void closeBlock() {
+        appendTo(fallbackBuilder, FENCE);
+        if (state == State.CODE) {
+            emitContent();
+            completeBlock(currentLanguage, codeBuilder.toString().trim());
+        }
+        codeBuilder.setLength(0);
+        emittedLength = 0;
+        currentLanguage = null;
+        state = State.TEXT;
+    }
+
+    /**
+     * 将当前代码块新增的内容回调给内容处理器
+     */
+    private void emitContent() {
+        if (state != State.CODE) {
+            return;
+        }
+        int end = codeBuilder.length();
+        // 不拆分代理对，高位代理留到下一次回调
+        if (end > emittedLength && Character.isHighSurrogate(codeBuilder.charAt(end - 1))) {
+            end--;
+        }
+        if (end <= emittedLength) {
+            return;
+        }
+        String text = codeBuilder.substring(emittedLength, end);
+        emittedLength = end;
+        try {
+            contentHandler.accept(currentLanguage, text);
+        } catch (Exception e) {
+            log.error("处理 {} 代码片段失败: {}", currentLanguage, e.getMessage());
+        }
+    }
+
+    private void completeBlock(String language, String code) {
+        completedLanguages.add(language);
+        if (code.isEmpty()) {
+            return;
+        }
+        switch (language) {
+            case LANGUAGE_HTML -> result.setHtmlCode(code);
+            case LANGUAGE_CSS -> result.setCssCode(code);
+            case LANGUAGE_JS -> result.setJsCode(code);
+            default -> {
+                return;
+            }
+        }
+        try {
+            blockHandler.accept(language, code);
+        } catch (Exception e) {
+            log.error("处理 {} 代码块失败: {}", language, e.getMessage());
+        }
+    }
+
+    /**
+     * 取出未凑满 ``` 的反引号，需要补回内容中（例如 JS 模板字符串）
+     */
+    private String takePendingBackticks() {
+        String backticks = "`".repeat(backtickCount);
+        backtickCount = 0;
+        return backticks;
+    }
+
+    private void appendTo(StringBuilder target, String text) {
+        if (target != null) {
+            target.append(text);
+        }
+    }
+
+    /**
+     * 规范化代码块语言标记，不支持的语言返回 null
+     */
+    private String normalizeLanguage(String header) {
+        return switch (header.toLowerCase()) {
+            case "html" -> LANGUAGE_HTML;
+            case "css" -> LANGUAGE_CSS;
+            case "js", "javascript" -> LANGUAGE_JS;
+            default -> null;
+        };
+    }
+}
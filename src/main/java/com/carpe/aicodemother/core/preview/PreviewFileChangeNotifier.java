@@ -0,0 +1,55 @@
+package com.carpe.aicodemother.core.preview;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 生成文件变更通知
+ * 代码保存器（非 Spring Bean）和文件工具写入文件后调用，通知预览缓存立即失效，不必等待缓存过期
+ */
+@Slf4j
+public final class PreviewFileChangeNotifier {
+
+    private static final List<Consumer<Path>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private PreviewFileChangeNotifier() {
+    }
+
+    /**
+     * 注册监听器
+     *
+     * @param listener 接收变更的文件或目录路径
+     */
+    public static void register(Consumer<Path> listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * 移除监听器
+     *
+     * @param listener 监听器
+     */
+    public static void unregister(Consumer<Path> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * 通知文件或目录内容已变更
+     *
+     * @param path 变更的文件或目录
+     */
+    public static void notifyChanged(Path path) {
+        for (Consumer<Path> listener : LISTENERS) {
+            try {
+                listener.accept(path);
+            } catch (Exception e) {
+                // 缓存失效失败不应影响文件保存
+                log.warn("预览缓存失效失败：{}, 错误: {}", path, e.getMessage());
+            }
+        }
+    }
+}
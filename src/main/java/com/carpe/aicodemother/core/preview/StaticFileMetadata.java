@@ -0,0 +1,30 @@
+package com.carpe.aicodemother.core.preview;
+
+import java.nio.file.Path;
+
+/**
+ * 静态文件元数据（缓存在内存中，避免每次请求都访问磁盘）
+ *
+ * @param path         文件路径
+ * @param size         文件大小
+ * @param lastModified 最后修改时间（毫秒）
+ * @param etag         强 ETag（含引号）
+ * @param contentType  Content-Type（文本类型带字符编码）
+ * @param brotli       预压缩的 brotli 版本，不存在时为 null
+ * @param gzip         预压缩的 gzip 版本，不存在时为 null
+ */
+public record StaticFileMetadata(Path path, long size, long lastModified, String etag, String contentType,
+                                 Variant brotli, Variant gzip) {
+
+    /**
+     * 预压缩版本（file.br / file.gz）
+     *
+     * @param path         文件路径
+     * @param size         文件大小
+     * @param lastModified 最后修改时间（毫秒）
+     * @param etag         强 ETag（含引号）
+     * @param encoding     Content-Encoding
+     */
+    public record Variant(Path path, long size, long lastModified, String etag, String encoding) {
+    }
+}
@@ -0,0 +1,589 @@
+package com.carpe.aicodemother.core.preview;
+
+import cn.hutool.core.util.HexUtil;
+import com.carpe.aicodemother.constant.AppConstant;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 静态预览服务引擎
+ * 为 /static/{deployKey}/** 提供静态文件，替代每次请求都 new File + exists 再返回 FileSystemResource 的方式：
+ * <p>
+ * - 文件元数据（大小、修改时间、ETag、Content-Type、预压缩版本）缓存在内存中，短时间内不再访问磁盘；
+ *   到期后只重新读取文件属性，大小和修改时间都没变时沿用原来的 ETag，不再重新计算内容摘要
+ * - 强 ETag + Last-Modified，支持 If-None-Match / If-Modified-Since 返回 304
+ * - 客户端支持时优先返回预压缩的 .br / .gz 文件
+ * - 支持单区间 Range 请求
+ * - 磁盘上的文件从校验过大小的 FileChannel 通过 transferTo 写出（不使用 Tomcat sendfile：它按文件名重新打开文件，
+ *   文件在校验后被替换时会按旧的 Content-Length 发送新内容）
+ * - Content-Type 使用 Spring 内置的完整 MIME 表
+ * - 小文件的内容缓存在内存中（按 deployKey + 路径 + 修改时间区分），HTML / 多文件应用的预览基本不再读盘
+ */
+@Slf4j
+@Component
+public class StaticPreviewEngine {
+
+    /**
+     * 不超过该大小的文件使用内容摘要作为 ETag，更大的文件使用大小 + 修改时间
+     */
+    private static final long CONTENT_ETAG_MAX_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * Vite 构建产物中带内容哈希的文件（如 dist/assets/index-3f9a1c2b.js），内容变化时文件名一定变化，可以长期缓存
+     */
+    private static final Pattern HASHED_ASSET_PATTERN = Pattern.compile("^/dist/assets/.+-[A-Za-z0-9_-]{8}\\.[A-Za-z0-9]+$");
+
+    private static final Set<String> TEXT_LIKE_TYPES = Set.of(
+            "application/javascript", "application/json", "application/xml", "image/svg+xml", "application/manifest+json");
+
+    private static final String CACHE_CONTROL_REVALIDATE = "no-cache";
+
+    private static final String CACHE_CONTROL_IMMUTABLE = "public, max-age=31536000, immutable";
+
+    /**
+     * 打开的文件与缓存元数据不一致时，重新加载元数据的最多次数
+     */
+    private static final int MAX_METADATA_RELOADS = 2;
+
+    /**
+     * 元数据条目在多久未被访问后丢弃
+     */
+    private static final Duration METADATA_IDLE_EXPIRY = Duration.ofMinutes(10);
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 元数据缓存时间（毫秒），到期后访问时重新读取文件属性；文件保存时也会主动失效
+     */
+    @Value("${preview.static.metadata-ttl-ms:2000}")
+    private long metadataTtlMs;
+
+    /**
+     * 文件内容缓存的总大小上限（字节），为 0 时不缓存文件内容
+     */
+    @Value("${preview.static.hot-cache-max-bytes:67108864}")
+    private long hotCacheMaxBytes;
+
+    /**
+     * 超过该大小的文件不缓存内容
+     */
+    @Value("${preview.static.hot-file-max-bytes:262144}")
+    private long hotFileMaxBytes;
+
+    private Path previewRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR).toAbsolutePath().normalize();
+
+    /**
+     * 文件路径 -> 元数据（Optional.empty 表示文件不存在，同样缓存以挡住重复的 404 请求）
+     */
+    private LoadingCache<Path, Optional<StaticFileMetadata>> metadataCache;
+
+    /**
+     * 文件内容缓存，键中包含修改时间，文件被替换后旧内容自然不会再命中
+     */
+    private Cache<HotFileKey, byte[]> hotFileCache;
+
+    private final Consumer<Path> fileChangeListener = this::onFileChanged;
+
+    private Counter okCounter;
+
+    private Counter notModifiedCounter;
+
+    private Counter partialCounter;
+
+    private Counter notFoundCounter;
+
+    @PostConstruct
+    public void init() {
+        metadataCache = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                // 在请求线程上同步刷新，返回的总是刷新后的元数据；长时间未访问的条目直接丢弃
+                .refreshAfterWrite(Duration.ofMillis(metadataTtlMs))
+                .executor(Runnable::run)
+                .expireAfterAccess(METADATA_IDLE_EXPIRY)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<StaticFileMetadata> load(Path file) {
+                        return loadMetadata(file, null);
+                    }
+
+                    @Override
+                    public Optional<StaticFileMetadata> reload(Path file, Optional<StaticFileMetadata> previous) {
+                        return loadMetadata(file, previous.orElse(null));
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, metadataCache, "static_preview_metadata_cache");
+        if (hotCacheMaxBytes > 0) {
+            hotFileCache = Caffeine.newBuilder()
+                    .maximumWeight(hotCacheMaxBytes)
+                    .weigher((HotFileKey key, byte[] bytes) -> bytes.length)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, hotFileCache, "static_preview_hot_file_cache");
+        }
+        PreviewFileChangeNotifier.register(fileChangeListener);
+        okCounter = requestCounter("ok");
+        notModifiedCounter = requestCounter("not_modified");
+        partialCounter = requestCounter("partial");
+        notFoundCounter = requestCounter("not_found");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        PreviewFileChangeNotifier.unregister(fileChangeListener);
+    }
+
+    /**
+     * 返回静态文件
+     *
+     * @param deployKey    预览目录名（{codeGenType}_{appId}）
+     * @param resourcePath 目录内的资源路径（以 / 开头）
+     * @param request      请求
+     * @param response     响应
+     */
+    public void serve(String deployKey, String resourcePath, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        if (resourcePath.endsWith("/")) {
+            resourcePath = resourcePath + "index.html";
+        }
+        Path file = resolve(deployKey, resourcePath);
+        for (int reloads = 0; reloads <= MAX_METADATA_RELOADS; reloads++) {
+            StaticFileMetadata metadata = file == null ? null : getMetadata(file).orElse(null);
+            if (metadata == null) {
+                notFoundCounter.increment();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            StaticFileMetadata.Variant variant = selectVariant(metadata, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            // 先打开文件再写响应头：文件在元数据缓存过期前被修改或删除时，按缓存的大小发送会导致客户端一直等待
+            Path target = variant != null ? variant.path() : metadata.path();
+            long expectedSize = variant != null ? variant.size() : metadata.size();
+            try (FileChannel channel = openChannel(target)) {
+                if (channel != null && channel.size() == expectedSize) {
+                    serve(deployKey, resourcePath, metadata, variant, channel, request, response);
+                    return;
+                }
+            }
+            metadataCache.invalidate(file);
+        }
+        // 文件持续变化，稍后重试
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * 按已校验的元数据返回文件
+     *
+     * @param channel 已打开的文件，大小与元数据一致
+     */
+    private void serve(String deployKey, String resourcePath, StaticFileMetadata metadata,
+                       StaticFileMetadata.Variant variant, FileChannel channel,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = variant != null ? variant.etag() : metadata.etag();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, metadata.lastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(resourcePath));
+        response.setContentType(metadata.contentType());
+        if (metadata.brotli() != null || metadata.gzip() != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (isNotModified(request, etag, metadata.lastModified())) {
+            notModifiedCounter.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+        if (variant != null) {
+            // 压缩版本不支持 Range，整体返回
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, variant.encoding());
+            okCounter.increment();
+            sendFile(deployKey, variant.path(), channel, variant.size(), variant.lastModified(), 0, variant.size(),
+                    head, response);
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        long[] range = parseRange(request, etag, metadata);
+        if (range == null) {
+            okCounter.increment();
+            sendFile(deployKey, metadata.path(), channel, metadata.size(), metadata.lastModified(), 0, metadata.size(),
+                    head, response);
+            return;
+        }
+        if (range.length == 0) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + metadata.size());
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        partialCounter.increment();
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader(HttpHeaders.CONTENT_RANGE,
+                "bytes " + range[0] + "-" + (range[1] - 1) + "/" + metadata.size());
+        sendFile(deployKey, metadata.path(), channel, metadata.size(), metadata.lastModified(), range[0], range[1],
+                head, response);
+    }
+
+    /**
+     * 打开文件，文件不存在或无法读取时返回 null
+     */
+    private FileChannel openChannel(Path file) {
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 使某个预览目录下的元数据和文件内容缓存失效（文件保存后调用）
+     *
+     * @param deployKey 预览目录名
+     */
+    public void invalidate(String deployKey) {
+        Path dir = previewRoot.resolve(deployKey).normalize();
+        metadataCache.asMap().keySet().removeIf(path -> path.startsWith(dir));
+        if (hotFileCache != null) {
+            hotFileCache.asMap().keySet().removeIf(key -> key.deployKey().equals(deployKey));
+        }
+    }
+
+    /**
+     * 文件变更通知：路径位于预览根目录下时，使对应预览目录的缓存失效
+     */
+    private void onFileChanged(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+        if (!normalized.startsWith(previewRoot) || normalized.equals(previewRoot)) {
+            return;
+        }
+        invalidate(previewRoot.relativize(normalized).getName(0).toString());
+    }
+
+    /**
+     * 解析文件路径，拒绝跳出预览目录的路径
+     */
+    private Path resolve(String deployKey, String resourcePath) {
+        Path dir = previewRoot.resolve(deployKey).normalize();
+        if (!dir.getParent().equals(previewRoot)) {
+            return null;
+        }
+        Path file = dir.resolve(resourcePath.substring(1)).normalize();
+        return file.startsWith(dir) ? file : null;
+    }
+
+    private Optional<StaticFileMetadata> getMetadata(Path file) {
+        return metadataCache.get(file);
+    }
+
+    /**
+     * 读取文件元数据
+     *
+     * @param previous 刷新前的元数据，大小和修改时间都没变时沿用其 ETag；首次加载时为 null
+     */
+    private Optional<StaticFileMetadata> loadMetadata(Path file, StaticFileMetadata previous) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String etag = previous != null && previous.size() == attributes.size()
+                    && previous.lastModified() == lastModified
+                    ? previous.etag()
+                    : computeEtag(file, attributes.size(), lastModified);
+            return Optional.of(new StaticFileMetadata(file, attributes.size(), lastModified, etag,
+                    resolveContentType(file.getFileName().toString()),
+                    loadVariant(file, ".br", "br", etag),
+                    loadVariant(file, ".gz", "gzip", etag)));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 读取预压缩版本，比原文件旧的版本视为过期，不使用
+     */
+    private StaticFileMetadata.Variant loadVariant(Path file, String suffix, String encoding, String etag) throws IOException {
+        Path variantPath = file.resolveSibling(file.getFileName() + suffix);
+        if (!Files.isRegularFile(variantPath, LinkOption.NOFOLLOW_LINKS)) {
+            return null;
+        }
+        if (Files.getLastModifiedTime(variantPath).compareTo(Files.getLastModifiedTime(file)) < 0) {
+            return null;
+        }
+        String variantEtag = etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+        BasicFileAttributes attributes = Files.readAttributes(variantPath, BasicFileAttributes.class);
+        return new StaticFileMetadata.Variant(variantPath, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                variantEtag, encoding);
+    }
+
+    /**
+     * 计算强 ETag：小文件使用内容摘要，大文件使用大小 + 修改时间
+     */
+    private String computeEtag(Path file, long size, long lastModified) throws IOException {
+        if (size > CONTENT_ETAG_MAX_BYTES) {
+            return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        // 截取前 16 字节即可保证唯一性
+        byte[] hash = digest.digest();
+        byte[] prefix = new byte[16];
+        System.arraycopy(hash, 0, prefix, 0, prefix.length);
+        return "\"" + HexUtil.encodeHexStr(prefix) + "\"";
+    }
+
+    /**
+     * 根据文件名获取 Content-Type，文本类型附带 UTF-8 编码
+     */
+    private String resolveContentType(String filename) {
+        MediaType mediaType = MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        String type = mediaType.getType() + "/" + mediaType.getSubtype();
+        // mime.types 中 .js 对应 text/javascript 与 application/javascript 两种写法，统一为后者
+        if ("text/javascript".equals(type)) {
+            type = "application/javascript";
+        }
+        if ("text".equals(mediaType.getType()) || TEXT_LIKE_TYPES.contains(type)) {
+            return type + ";charset=UTF-8";
+        }
+        return type;
+    }
+
+    private String cacheControl(String resourcePath) {
+        return HASHED_ASSET_PATTERN.matcher(resourcePath).matches() ? CACHE_CONTROL_IMMUTABLE : CACHE_CONTROL_REVALIDATE;
+    }
+
+    /**
+     * 按 Accept-Encoding 选择预压缩版本，优先 brotli
+     */
+    private StaticFileMetadata.Variant selectVariant(StaticFileMetadata metadata, String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        if (metadata.brotli() != null && acceptsEncoding(acceptEncoding, "br")) {
+            return metadata.brotli();
+        }
+        if (metadata.gzip() != null && acceptsEncoding(acceptEncoding, "gzip")) {
+            return metadata.gzip();
+        }
+        return null;
+    }
+
+    private boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!tokens[0].trim().equalsIgnoreCase(encoding)) {
+                continue;
+            }
+            // q=0 表示明确拒绝
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 条件请求判断：If-None-Match 优先，其次 If-Modified-Since
+     */
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                // If-None-Match 使用弱比较
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            // HTTP 日期只精确到秒
+            return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析单区间 Range 请求
+     *
+     * @return null 表示返回完整内容；空数组表示区间无法满足；否则为 [start, end)
+     */
+    private long[] parseRange(HttpServletRequest request, String etag, StaticFileMetadata metadata) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=") || rangeHeader.contains(",")) {
+            // 多区间请求较少见，直接返回完整内容
+            return null;
+        }
+        // If-Range 不匹配时返回完整内容
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return null;
+        }
+        String spec = rangeHeader.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long size = metadata.size();
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // bytes=-N：最后 N 个字节
+                long suffixLength = Long.parseLong(spec.substring(1));
+                if (suffixLength <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, size - suffixLength);
+                end = size;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size : Math.min(size, Long.parseLong(spec.substring(dash + 1)) + 1);
+            }
+            if (start >= size || start >= end) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 发送文件的 [start, end) 区间
+     * 小文件从内存缓存中直接写出，其余从已打开的文件通过 FileChannel.transferTo 写入响应流。
+     * 内存缓存的内容与大小不一致时，同样从已打开的文件发送（文件被原子替换时，已打开的仍是与元数据一致的旧文件）
+     */
+    private void sendFile(String deployKey, Path file, FileChannel channel, long size, long lastModified, long start,
+                          long end, boolean head, HttpServletResponse response) throws IOException {
+        long length = end - start;
+        response.setContentLengthLong(length);
+        if (head || length == 0) {
+            return;
+        }
+        byte[] cached = getHotFileBytes(deployKey, file, size, lastModified);
+        if (cached != null) {
+            OutputStream outputStream = response.getOutputStream();
+            outputStream.write(cached, (int) start, (int) length);
+            outputStream.flush();
+            return;
+        }
+        OutputStream outputStream = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        long position = start;
+        while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * 从内存缓存读取文件内容，文件过大、缓存未启用或读取期间文件被替换时返回 null
+     */
+    private byte[] getHotFileBytes(String deployKey, Path file, long size, long lastModified) throws IOException {
+        if (hotFileCache == null || size > hotFileMaxBytes) {
+            return null;
+        }
+        HotFileKey key = new HotFileKey(deployKey, previewRoot.relativize(file).toString(), lastModified);
+        byte[] bytes;
+        try {
+            bytes = hotFileCache.get(key, k -> {
+                try {
+                    return Files.readAllBytes(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (bytes.length != size) {
+            // 元数据缓存过期前文件已被替换，丢弃这次读取的内容，从已打开的文件发送
+            hotFileCache.invalidate(key);
+            return null;
+        }
+        return bytes;
+    }
+
+    private Counter requestCounter(String result) {
+        return Counter.builder("static_preview_requests_total")
+                .description("静态预览请求数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 文件内容缓存键
+     *
+     * @param deployKey    预览目录名
+     * @param path         相对预览根目录的文件路径
+     * @param lastModified 文件修改时间（毫秒）
+     */
+    private record HotFileKey(String deployKey, String path, long lastModified) {
+    }
+}
@@ -33,4 +33,19 @@ public class CodeFileSaverExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
         };
     }
+
+    /**
+     * 打开流式写入器（流式解析时使用）
+     *
+     * @param codeGenType 代码生成类型
+     * @param appId       应用 ID
+     * @return 流式写入器
+     */
+    public static StreamingCodeFileWriter openStreamWriter(CodeGenTypeEnum codeGenType, Long appId) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver.openStreamWriter(appId);
+            case MULTI_FILE -> multiFileCodeFileSaver.openStreamWriter(appId);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
 }
@@ -3,12 +3,15 @@ package com.carpe.aicodemother.core.saver;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
+import com.carpe.aicodemother.core.preview.PreviewFileChangeNotifier;
 import com.carpe.aicodemother.exception.BusinessException;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.model.enums.CodeGenTypeEnum;
 
 import java.io.File;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import static com.carpe.aicodemother.constant.AppConstant.CODE_OUTPUT_ROOT_DIR;
 
@@ -38,6 +41,18 @@ public abstract class CodeFileSaverTemplate<T> {
         return new File(baseDirPath);
     }
 
+    /**
+     * 流式保存：打开基于 appId 目录的流式写入器
+     * 代码块内容边到达边追加到临时文件，代码块结束后原子发布
+     *
+     * @param appId 应用 ID
+     * @return 流式写入器
+     */
+    public final StreamingCodeFileWriter openStreamWriter(Long appId) {
+        String baseDirPath = buildUniqueDir(appId);
+        return new StreamingCodeFileWriter(baseDirPath, this::getFileName);
+    }
+
     /**
      * 验证输入参数（可由子类覆盖）
      *
@@ -67,7 +82,7 @@ public abstract class CodeFileSaverTemplate<T> {
     }
 
     /**
-     * 写入单个文件的工具方法
+     * 写入单个文件的工具方法（先写临时文件再原子重命名，避免预览读到写了一半的文件）
      *
      * @param dirPath  目录路径
      * @param filename 文件名
@@ -75,8 +90,13 @@ public abstract class CodeFileSaverTemplate<T> {
      */
     protected final void writeToFile(String dirPath, String filename, String content) {
         if (StrUtil.isNotBlank(content)) {
-            String filePath = dirPath + File.separator + filename;
-            FileUtil.writeString(content, filePath, StandardCharsets.UTF_8);
+            Path filePath = Paths.get(dirPath, filename);
+            try {
+                StreamingCodeFileWriter.writeAtomically(filePath, content);
+                PreviewFileChangeNotifier.notifyChanged(filePath);
+            } catch (IOException e) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存文件失败: " + filename);
+            }
         }
     }
 
@@ -87,6 +107,14 @@ public abstract class CodeFileSaverTemplate<T> {
      */
     protected abstract CodeGenTypeEnum getCodeType();
 
+    /**
+     * 根据代码块语言获取保存的文件名（由子类实现）
+     *
+     * @param language 代码块语言
+     * @return 文件名，不支持的语言返回 null
+     */
+    protected abstract String getFileName(String language);
+
     /**
      * 保存文件的具体实现（由子类实现）
      *
@@ -2,6 +2,7 @@ package com.carpe.aicodemother.core.saver;
 
 import cn.hutool.core.util.StrUtil;
 import com.carpe.aicodemother.ai.model.HtmlCodeResult;
+import com.carpe.aicodemother.core.parser.StreamingCodeParser;
 import com.carpe.aicodemother.exception.BusinessException;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.model.enums.CodeGenTypeEnum;
@@ -16,6 +17,11 @@ public class HtmlCodeFileSaverTemplate extends CodeFileSaverTemplate<HtmlCodeRes
         return CodeGenTypeEnum.HTML;
     }
 
+    @Override
+    protected String getFileName(String language) {
+        return StreamingCodeParser.LANGUAGE_HTML.equals(language) ? "index.html" : null;
+    }
+
     @Override
     protected void saveFiles(HtmlCodeResult result, String baseDirPath) {
         // 保存 HTML 文件
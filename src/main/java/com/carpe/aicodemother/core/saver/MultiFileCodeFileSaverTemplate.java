@@ -2,6 +2,7 @@ package com.carpe.aicodemother.core.saver;
 
 import cn.hutool.core.util.StrUtil;
 import com.carpe.aicodemother.ai.model.MultiFileCodeResult;
+import com.carpe.aicodemother.core.parser.StreamingCodeParser;
 import com.carpe.aicodemother.exception.BusinessException;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.model.enums.CodeGenTypeEnum;
@@ -16,6 +17,16 @@ public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiF
         return CodeGenTypeEnum.MULTI_FILE;
     }
 
+    @Override
+    protected String getFileName(String language) {
+        return switch (language) {
+            case StreamingCodeParser.LANGUAGE_HTML -> "index.html";
+            case StreamingCodeParser.LANGUAGE_CSS -> "style.css";
+            case StreamingCodeParser.LANGUAGE_JS -> "script.js";
+            default -> null;
+        };
+    }
+
     @Override
     protected void saveFiles(MultiFileCodeResult result, String baseDirPath) {
         // 保存 HTML 文件
@@ -0,0 +1,262 @@
+package com.carpe.aicodemother.core.saver;
+
+import com.carpe.aicodemother.core.preview.PreviewFileChangeNotifier;
+import com.carpe.aicodemother.exception.BusinessException;
+import com.carpe.aicodemother.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 流式代码文件写入器
+ * AI 输出代码块的过程中，将内容通过 FileChannel 追加写入同目录下的临时文件；
+ * 代码块结束后再原子重命名为正式文件，预览方永远不会读到写了一半的文件。
+ * 临时文件名带随机部分，同一文件的多个写入方（如同一应用的重新生成与未结束的流）各写各的临时文件，不会互相截断
+ * <p>
+ * 写入内容与 String.trim() 后的代码保持一致：跳过开头的空白，结尾的空白暂存到遇到非空白字符时再写入
+ * <p>
+ * 注意：实例有状态且非线程安全，每个流使用一个新实例
+ */
+@Slf4j
+public class StreamingCodeFileWriter implements AutoCloseable {
+
+    /**
+     * 未提交的临时文件后缀
+     */
+    public static final String TEMP_FILE_SUFFIX = ".writing";
+
+    /**
+     * 临时文件的权限（Files.createTempFile 默认只有所有者可读写，发布后的文件需要与普通写入的文件一致）
+     */
+    private static final Set<PosixFilePermission> PUBLISHED_FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
+
+    private final Path baseDir;
+
+    private final Function<String, String> fileNameResolver;
+
+    /**
+     * 正在写入的临时文件（按语言区分）
+     */
+    private final Map<String, PendingFile> pendingFiles = new HashMap<>();
+
+    public StreamingCodeFileWriter(String baseDirPath, Function<String, String> fileNameResolver) {
+        this.baseDir = Paths.get(baseDirPath);
+        this.fileNameResolver = fileNameResolver;
+    }
+
+    /**
+     * 追加代码块内容到临时文件
+     *
+     * @param language 代码块语言
+     * @param text     新到达的代码片段
+     */
+    public void append(String language, String text) {
+        PendingFile pendingFile = getOrOpen(language);
+        if (pendingFile == null) {
+            return;
+        }
+        try {
+            pendingFile.append(text);
+        } catch (IOException e) {
+            log.error("追加写入临时文件失败: {}, 错误: {}", pendingFile.tempPath, e.getMessage());
+            discard(language);
+        }
+    }
+
+    /**
+     * 代码块结束，原子发布为正式文件
+     *
+     * @param language 代码块语言
+     * @param code     完整代码（临时文件不可用时直接写入该内容）
+     */
+    public void commit(String language, String code) {
+        String fileName = fileNameResolver.apply(language);
+        if (fileName == null) {
+            return;
+        }
+        Path target = baseDir.resolve(fileName);
+        PendingFile pendingFile = pendingFiles.remove(language);
+        try {
+            if (pendingFile != null && pendingFile.written > 0) {
+                pendingFile.close();
+                moveAtomically(pendingFile.tempPath, target);
+            } else {
+                if (pendingFile != null) {
+                    pendingFile.closeAndDelete();
+                }
+                if (code != null && !code.isBlank()) {
+                    writeAtomically(target, code);
+                }
+            }
+            PreviewFileChangeNotifier.notifyChanged(target);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存文件失败: " + fileName);
+        }
+    }
+
+    /**
+     * 关闭写入器，清理所有未提交的临时文件（流出错或被取消时）
+     */
+    @Override
+    public void close() {
+        for (String language : pendingFiles.keySet().toArray(new String[0])) {
+            discard(language);
+        }
+    }
+
+    /**
+     * 原子写入整个文件：先写同目录临时文件，再重命名覆盖目标文件
+     *
+     * @param target  目标文件
+     * @param content 文件内容
+     */
+    public static void writeAtomically(Path target, String content) throws IOException {
+        Path tempPath = createTempFile(target);
+        try {
+            Files.writeString(tempPath, content, StandardCharsets.UTF_8, StandardOpenOption.WRITE);
+            moveAtomically(tempPath, target);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+    }
+
+    /**
+     * 在目标文件所在目录创建唯一的临时文件：{文件名}.{随机数}.writing
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tempPath = Files.createTempFile(dir, target.getFileName() + ".", TEMP_FILE_SUFFIX);
+        if (Files.getFileStore(tempPath).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(tempPath, PUBLISHED_FILE_PERMISSIONS);
+        }
+        return tempPath;
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // 文件系统不支持原子移动时降级为普通覆盖
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private PendingFile getOrOpen(String language) {
+        PendingFile pendingFile = pendingFiles.get(language);
+        if (pendingFile != null) {
+            return pendingFile;
+        }
+        String fileName = fileNameResolver.apply(language);
+        if (fileName == null) {
+            return null;
+        }
+        Path target = baseDir.resolve(fileName);
+        Path tempPath = null;
+        try {
+            tempPath = createTempFile(target);
+            FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE);
+            pendingFile = new PendingFile(tempPath, channel);
+            pendingFiles.put(language, pendingFile);
+            return pendingFile;
+        } catch (IOException e) {
+            log.error("创建临时文件失败: {}, 错误: {}", target, e.getMessage());
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (IOException ignored) {
+                    // 清理失败不影响降级为提交时整体写入
+                }
+            }
+            return null;
+        }
+    }
+
+    private void discard(String language) {
+        PendingFile pendingFile = pendingFiles.remove(language);
+        if (pendingFile != null) {
+            pendingFile.closeAndDelete();
+        }
+    }
+
+    /**
+     * 正在写入的临时文件
+     */
+    private static class PendingFile {
+
+        private final Path tempPath;
+
+        private final FileChannel channel;
+
+        /**
+         * 尚未写入的结尾空白
+         */
+        private final StringBuilder trailingWhitespace = new StringBuilder();
+
+        private long written = 0;
+
+        private PendingFile(Path tempPath, FileChannel channel) {
+            this.tempPath = tempPath;
+            this.channel = channel;
+        }
+
+        private void append(String text) throws IOException {
+            // 找到最后一个非空白字符，之后的空白暂存
+            int end = text.length();
+            while (end > 0 && text.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (end == 0) {
+                if (written > 0) {
+                    trailingWhitespace.append(text);
+                }
+                return;
+            }
+            int start = 0;
+            if (written == 0) {
+                // 跳过开头的空白
+                while (text.charAt(start) <= ' ') {
+                    start++;
+                }
+            }
+            String content = trailingWhitespace + text.substring(start, end);
+            trailingWhitespace.setLength(0);
+            trailingWhitespace.append(text, end, text.length());
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(content);
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+        }
+
+        private void close() throws IOException {
+            channel.force(false);
+            channel.close();
+        }
+
+        private void closeAndDelete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(tempPath);
+            } catch (IOException e) {
+                log.warn("清理临时文件失败: {}, 错误: {}", tempPath, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.carpe.aicodemother.core.screenshot;
+
+import cn.hutool.core.util.StrUtil;
+import com.carpe.aicodemother.core.builder.BuildFingerprintUtils;
+import com.carpe.aicodemother.model.entity.App;
+import com.carpe.aicodemother.service.AppService;
+import com.carpe.aicodemother.service.ScreenshotService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 应用封面截图调度器
+ * 部署 / 回滚后更新应用封面，避免无意义的重复截图：
+ * <p>
+ * - 计算已部署文件的内容指纹，与生成当前封面时记录的指纹相同时跳过截图和上传
+ * - 同一应用短时间内的多次请求合并为一次截图（只截取最后一次请求的内容）
+ * - 同一应用的截图串行执行，后完成的旧截图不会覆盖新封面
+ */
+@Slf4j
+@Component
+public class AppCoverScheduler {
+
+    /**
+     * 封面对应的内容指纹，值为 "{指纹}|{封面URL}"
+     */
+    private static final String COVER_HASH_KEY_PREFIX = "app:cover:hash:";
+
+    @Resource
+    private ScreenshotService screenshotService;
+
+    @Resource
+    @Lazy
+    private AppService appService;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 请求到达后等待的时间（毫秒），期间同一应用的后续请求合并到本次截图
+     */
+    @Value("${screenshot.coalesce-delay-ms:3000}")
+    private long coalesceDelayMs;
+
+    /**
+     * 封面指纹记录的保留天数
+     */
+    @Value("${screenshot.cover-hash-ttl-days:30}")
+    private long coverHashTtlDays;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 应用 ID -> 截图任务，用于合并请求和串行化（通过 synchronized(this) 保护）
+     */
+    private final Map<Long, CoverJob> jobs = new HashMap<>();
+
+    private Counter capturedCounter;
+
+    private Counter skippedCounter;
+
+    private Counter coalescedCounter;
+
+    @PostConstruct
+    public void init() {
+        capturedCounter = requestCounter("captured");
+        skippedCounter = requestCounter("skipped");
+        coalescedCounter = requestCounter("coalesced");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 请求更新应用封面
+     *
+     * @param appId      应用ID
+     * @param appUrl     应用访问URL
+     * @param contentDir 已部署的内容目录，为 null 时不做内容去重，总是重新截图
+     */
+    public void submit(Long appId, String appUrl, Path contentDir) {
+        CoverRequest request = new CoverRequest(appUrl, contentDir);
+        synchronized (this) {
+            CoverJob job = jobs.get(appId);
+            if (job != null) {
+                // 已有等待中或执行中的截图：只保留最新的请求
+                if (job.latest != null) {
+                    coalescedCounter.increment();
+                }
+                job.latest = request;
+                return;
+            }
+            job = new CoverJob();
+            job.latest = request;
+            jobs.put(appId, job);
+        }
+        schedule(appId);
+    }
+
+    private void schedule(Long appId) {
+        CompletableFuture.runAsync(() -> run(appId),
+                CompletableFuture.delayedExecutor(coalesceDelayMs, TimeUnit.MILLISECONDS, executor));
+    }
+
+    private void run(Long appId) {
+        CoverRequest request;
+        synchronized (this) {
+            CoverJob job = jobs.get(appId);
+            request = job.latest;
+            job.latest = null;
+        }
+        try {
+            refreshCover(appId, request);
+        } catch (Exception e) {
+            log.error("更新应用封面失败：{}", appId, e);
+        }
+        synchronized (this) {
+            CoverJob job = jobs.get(appId);
+            if (job.latest == null) {
+                jobs.remove(appId);
+                return;
+            }
+        }
+        // 截图期间又有新的请求，继续处理
+        schedule(appId);
+    }
+
+    private void refreshCover(Long appId, CoverRequest request) {
+        App app = appService.getById(appId);
+        if (app == null) {
+            return;
+        }
+        String contentHash = computeContentHash(request.contentDir());
+        if (contentHash != null && StrUtil.isNotBlank(app.getCover())
+                && (contentHash + "|" + app.getCover()).equals(readCoverHash(appId))) {
+            skippedCounter.increment();
+            log.info("应用内容未变化，沿用当前封面：{}", appId);
+            return;
+        }
+        // 调用截图服务生成截图并上传
+        String screenshotUrl = screenshotService.generateAndUploadScreenshot(request.appUrl());
+        capturedCounter.increment();
+        // 更新数据库的封面
+        App updateApp = new App();
+        updateApp.setId(appId);
+        updateApp.setCover(screenshotUrl);
+        if (!appService.updateById(updateApp)) {
+            log.error("更新应用封面字段失败：{}", appId);
+            return;
+        }
+        if (contentHash != null) {
+            writeCoverHash(appId, contentHash + "|" + screenshotUrl);
+        }
+    }
+
+    /**
+     * 计算已部署内容的指纹（部署目录是指向发布目录的符号链接，先解析为真实路径）
+     */
+    private String computeContentHash(Path contentDir) {
+        if (contentDir == null) {
+            return null;
+        }
+        try {
+            return BuildFingerprintUtils.fileTreeHash(contentDir.toRealPath());
+        } catch (Exception e) {
+            log.warn("计算部署内容指纹失败，直接截图：{}, 错误: {}", contentDir, e.getMessage());
+            return null;
+        }
+    }
+
+    private String readCoverHash(Long appId) {
+        try {
+            return stringRedisTemplate.opsForValue().get(COVER_HASH_KEY_PREFIX + appId);
+        } catch (Exception e) {
+            log.warn("读取封面指纹失败：{}, 错误: {}", appId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCoverHash(Long appId, String value) {
+        try {
+            stringRedisTemplate.opsForValue().set(COVER_HASH_KEY_PREFIX + appId, value, Duration.ofDays(coverHashTtlDays));
+        } catch (Exception e) {
+            log.warn("保存封面指纹失败：{}, 错误: {}", appId, e.getMessage());
+        }
+    }
+
+    private Counter requestCounter(String result) {
+        return Counter.builder("app_cover_requests_total")
+                .description("应用封面更新请求数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 封面截图请求
+     *
+     * @param appUrl     应用访问URL
+     * @param contentDir 已部署的内容目录
+     */
+    private record CoverRequest(String appUrl, Path contentDir) {
+    }
+
+    /**
+     * 应用的截图任务：latest 为尚未处理的最新请求
+     */
+    private static class CoverJob {
+
+        private CoverRequest latest;
+    }
+}
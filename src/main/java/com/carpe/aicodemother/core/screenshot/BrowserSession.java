@@ -0,0 +1,30 @@
+package com.carpe.aicodemother.core.screenshot;
+
+import lombok.Getter;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * 浏览器会话（池中的一个浏览器实例）
+ * 同一时刻只会被一个截图任务借出使用
+ */
+@Getter
+public class BrowserSession {
+
+    private final long id;
+
+    private final WebDriver driver;
+
+    /**
+     * 已完成的截图次数，达到上限后回收重建，避免浏览器长期运行后内存膨胀
+     */
+    private int captureCount;
+
+    BrowserSession(long id, WebDriver driver) {
+        this.id = id;
+        this.driver = driver;
+    }
+
+    void incrementCaptureCount() {
+        captureCount++;
+    }
+}
@@ -0,0 +1,237 @@
+package com.carpe.aicodemother.core.screenshot;
+
+import com.carpe.aicodemother.exception.BusinessException;
+import com.carpe.aicodemother.exception.ErrorCode;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 无头浏览器会话池
+ * 替代所有截图线程共用一个静态 ChromeDriver 的方式：
+ * <p>
+ * - 最多同时存在 poolSize 个浏览器，按需创建，借出期间由借用方独占
+ * - 借出前做健康检查，浏览器已崩溃或失去响应时销毁重建
+ * - 每个浏览器完成若干次截图后回收重建
+ * - 归还时标记为损坏的会话直接销毁
+ */
+@Slf4j
+@Component
+public class BrowserSessionPool {
+
+    private static final int DEFAULT_WIDTH = 1600;
+
+    private static final int DEFAULT_HEIGHT = 900;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 浏览器实例数上限
+     */
+    @Value("${screenshot.pool-size:2}")
+    private int poolSize;
+
+    /**
+     * 单个浏览器最多截图次数，达到后回收重建
+     */
+    @Value("${screenshot.max-captures-per-session:50}")
+    private int maxCapturesPerSession;
+
+    /**
+     * 借用浏览器的最长等待时间（毫秒）
+     */
+    @Value("${screenshot.borrow-timeout-ms:60000}")
+    private long borrowTimeoutMs;
+
+    private Supplier<WebDriver> driverFactory = () -> createChromeDriver(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+
+    /**
+     * 空闲会话，后进先出，优先复用最近使用过的浏览器
+     */
+    private final BlockingDeque<BrowserSession> idleSessions = new LinkedBlockingDeque<>();
+
+    private final Set<BrowserSession> allSessions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong sessionIdGenerator = new AtomicLong();
+
+    private Semaphore permits;
+
+    private volatile boolean closed;
+
+    private Counter maxCapturesRecycledCounter;
+
+    private Counter unhealthyRecycledCounter;
+
+    private Counter brokenRecycledCounter;
+
+    @PostConstruct
+    public void init() {
+        poolSize = Math.max(1, poolSize);
+        permits = new Semaphore(poolSize, true);
+        Gauge.builder("screenshot_browser_sessions", allSessions, Set::size)
+                .description("已创建的截图浏览器数")
+                .register(meterRegistry);
+        Gauge.builder("screenshot_browser_sessions_idle", idleSessions, BlockingDeque::size)
+                .description("空闲的截图浏览器数")
+                .register(meterRegistry);
+        maxCapturesRecycledCounter = recycledCounter("max_captures");
+        unhealthyRecycledCounter = recycledCounter("unhealthy");
+        brokenRecycledCounter = recycledCounter("broken");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        for (BrowserSession session : allSessions) {
+            quit(session);
+        }
+        idleSessions.clear();
+    }
+
+    /**
+     * 借用一个浏览器会话，使用完必须调用 giveBack 归还
+     *
+     * @return 浏览器会话
+     * @throws InterruptedException 等待期间被中断
+     */
+    public BrowserSession borrow() throws InterruptedException {
+        if (closed) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "截图浏览器池已关闭");
+        }
+        if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "截图浏览器繁忙，请稍后重试");
+        }
+        try {
+            BrowserSession session;
+            while ((session = idleSessions.pollFirst()) != null) {
+                if (isHealthy(session)) {
+                    return session;
+                }
+                log.warn("截图浏览器已失去响应，销毁重建：{}", session.getId());
+                unhealthyRecycledCounter.increment();
+                quit(session);
+            }
+            return createSession();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还浏览器会话
+     *
+     * @param session 会话
+     * @param broken  使用过程中出现浏览器异常时为 true，会话将被销毁
+     */
+    public void giveBack(BrowserSession session, boolean broken) {
+        try {
+            session.incrementCaptureCount();
+            if (closed) {
+                quit(session);
+            } else if (broken) {
+                brokenRecycledCounter.increment();
+                quit(session);
+            } else if (session.getCaptureCount() >= maxCapturesPerSession) {
+                log.info("截图浏览器已完成 {} 次截图，回收重建：{}", session.getCaptureCount(), session.getId());
+                maxCapturesRecycledCounter.increment();
+                quit(session);
+            } else {
+                idleSessions.offerFirst(session);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    private BrowserSession createSession() {
+        BrowserSession session = new BrowserSession(sessionIdGenerator.incrementAndGet(), driverFactory.get());
+        allSessions.add(session);
+        log.info("截图浏览器已创建：{}，当前数量: {}", session.getId(), allSessions.size());
+        return session;
+    }
+
+    /**
+     * 健康检查：能取到窗口句柄说明浏览器进程和会话仍然可用
+     */
+    private boolean isHealthy(BrowserSession session) {
+        try {
+            return session.getDriver().getWindowHandle() != null;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    private void quit(BrowserSession session) {
+        allSessions.remove(session);
+        try {
+            session.getDriver().quit();
+        } catch (Exception e) {
+            log.warn("关闭截图浏览器失败：{}, 错误: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private Counter recycledCounter(String reason) {
+        return Counter.builder("screenshot_browser_recycled_total")
+                .description("回收重建的截图浏览器数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static WebDriver createChromeDriver(int width, int height) {
+        try {
+            // 自动管理 ChromeDriver
+            WebDriverManager.chromedriver().setup();
+            // 配置 Chrome 选项
+            ChromeOptions options = new ChromeOptions();
+            // 无头模式
+            options.addArguments("--headless");
+            // 禁用GPU（在某些环境下避免问题）
+            options.addArguments("--disable-gpu");
+            // 禁用沙盒模式（Docker环境需要）
+            options.addArguments("--no-sandbox");
+            // 禁用开发者shm使用
+            options.addArguments("--disable-dev-shm-usage");
+            // 设置窗口大小
+            options.addArguments(String.format("--window-size=%d,%d", width, height));
+            // 禁用扩展
+            options.addArguments("--disable-extensions");
+            // 设置用户代理
+            options.addArguments("--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
+            // 创建驱动
+            WebDriver driver = new ChromeDriver(options);
+            // 设置页面加载超时
+            driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(30));
+            return driver;
+        } catch (Exception e) {
+            log.error("初始化 Chrome 浏览器失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "初始化 Chrome 浏览器失败");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.carpe.aicodemother.core.screenshot;
+
+import com.carpe.aicodemother.exception.BusinessException;
+import com.carpe.aicodemother.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 截图编码器
+ * 在内存中把浏览器返回的 PNG 截图缩放并编码为 JPEG，不再经过临时文件：
+ * <p>
+ * - 宽度超过 output-width 时按比例缩小（封面展示不需要原始分辨率）
+ * - ImageWriter 放在池中复用，避免每次截图都重新查找和创建编码器
+ */
+@Slf4j
+@Component
+public class ScreenshotImageEncoder {
+
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    public static final String FILE_SUFFIX = ".jpg";
+
+    private static final int WRITER_POOL_SIZE = 4;
+
+    /**
+     * 输出图片的最大宽度（像素）
+     */
+    @Value("${screenshot.output-width:800}")
+    private int outputWidth = 800;
+
+    /**
+     * JPEG 压缩质量（0-1）
+     */
+    @Value("${screenshot.jpeg-quality:0.7}")
+    private float jpegQuality = 0.7f;
+
+    /**
+     * 空闲的 ImageWriter（非线程安全，同一时刻只由一个线程使用）
+     */
+    private final BlockingQueue<ImageWriter> idleWriters = new ArrayBlockingQueue<>(WRITER_POOL_SIZE);
+
+    /**
+     * 把 PNG 截图编码为缩放后的 JPEG
+     *
+     * @param pngBytes 原始 PNG 截图数据
+     * @return JPEG 数据
+     */
+    public byte[] encode(byte[] pngBytes) {
+        BufferedImage source;
+        try {
+            source = ImageIO.read(new ByteArrayInputStream(pngBytes));
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取截图失败");
+        }
+        if (source == null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "截图格式不受支持");
+        }
+        BufferedImage image = scale(source);
+        ImageWriter writer = borrowWriter();
+        boolean reusable = false;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64 * 1024);
+        try (MemoryCacheImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(outputStream)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+            reusable = true;
+        } catch (IOException e) {
+            log.error("编码截图失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "压缩图片失败");
+        } finally {
+            returnWriter(writer, reusable);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 按比例缩小到输出宽度，同时转换为 JPEG 支持的 RGB 格式（去掉透明通道）
+     */
+    private BufferedImage scale(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (outputWidth > 0 && width > outputWidth) {
+            height = Math.max(1, Math.round((float) height * outputWidth / width));
+            width = outputWidth;
+        }
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private ImageWriter borrowWriter() {
+        ImageWriter writer = idleWriters.poll();
+        if (writer != null) {
+            return writer;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "缺少 JPEG 编码器");
+        }
+        return writers.next();
+    }
+
+    private void returnWriter(ImageWriter writer, boolean reusable) {
+        // reset 会清除输出目标等状态，编码出错的 writer 直接丢弃
+        if (reusable) {
+            writer.reset();
+            if (idleWriters.offer(writer)) {
+                return;
+            }
+        }
+        writer.dispose();
+    }
+}
@@ -0,0 +1,213 @@
+package com.carpe.aicodemother.core.screenshot;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 网页截图执行器
+ * 截图任务进入有界队列，由与浏览器池大小相同数量的工作线程执行，每个任务独占一个浏览器：
+ * <p>
+ * - 页面加载完成后等待网络空闲（资源请求数在一段时间内不再变化、图片和字体加载完成），不再固定等待
+ * - 暴露排队数、排队等待耗时、截图耗时（按结果区分）等指标
+ */
+@Slf4j
+@Component
+public class WebScreenshotCapturer {
+
+    /**
+     * 页面状态探测脚本：页面和图片、字体都加载完成时返回已发起的资源请求数，否则返回 -1
+     * 视口之外的懒加载图片不会开始加载，不参与判断，否则会一直等到超时
+     */
+    private static final String NETWORK_STATE_SCRIPT = """
+            if (document.readyState !== 'complete') return -1;
+            if (document.fonts && document.fonts.status !== 'loaded') return -1;
+            for (const img of document.images) {
+              if (img.complete) continue;
+              if (img.loading === 'lazy') {
+                const rect = img.getBoundingClientRect();
+                if (rect.bottom < 0 || rect.top > innerHeight || rect.right < 0 || rect.left > innerWidth) continue;
+              }
+              return -1;
+            }
+            return performance.getEntriesByType('resource').length;
+            """;
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    @Resource
+    private BrowserSessionPool browserSessionPool;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 排队中的截图任务上限，超过时直接拒绝
+     */
+    @Value("${screenshot.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * 资源请求数保持不变的时长达到该值（毫秒）即视为网络空闲
+     */
+    @Value("${screenshot.network-idle-ms:500}")
+    private long networkIdleMs;
+
+    /**
+     * 等待页面就绪的最长时间（毫秒），超时后仍然截图
+     */
+    @Value("${screenshot.ready-timeout-ms:10000}")
+    private long readyTimeoutMs;
+
+    /**
+     * 单次截图（含排队）的最长等待时间（毫秒）
+     */
+    @Value("${screenshot.capture-timeout-ms:120000}")
+    private long captureTimeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer queueWaitTimer;
+
+    private Timer successTimer;
+
+    private Timer failureTimer;
+
+    @PostConstruct
+    public void init() {
+        int workers = browserSessionPool.getPoolSize();
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> Thread.ofPlatform()
+                        .name("web-screenshot-" + threadIndex.incrementAndGet())
+                        .daemon(true)
+                        .unstarted(runnable));
+        Gauge.builder("screenshot_queue_size", executor, e -> e.getQueue().size())
+                .description("排队中的截图任务数")
+                .register(meterRegistry);
+        queueWaitTimer = Timer.builder("screenshot_queue_wait_seconds")
+                .description("截图任务排队等待耗时")
+                .register(meterRegistry);
+        successTimer = captureTimer("success");
+        failureTimer = captureTimer("failure");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 截取网页（阻塞直到截图完成）
+     *
+     * @param webUrl 网页URL
+     * @return PNG 截图数据，失败返回 null
+     */
+    public byte[] capture(String webUrl) {
+        if (StrUtil.isBlank(webUrl)) {
+            log.error("网页URL不能为空");
+            return null;
+        }
+        long enqueuedAt = System.nanoTime();
+        Future<byte[]> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return captureWithPooledBrowser(webUrl);
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("截图任务队列已满，放弃截图: {}", webUrl);
+            return null;
+        }
+        try {
+            return future.get(captureTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            future.cancel(true);
+            log.error("网页截图失败: {}", webUrl, e);
+            return null;
+        }
+    }
+
+    private byte[] captureWithPooledBrowser(String webUrl) throws InterruptedException {
+        long start = System.nanoTime();
+        BrowserSession session = browserSessionPool.borrow();
+        boolean broken = false;
+        try {
+            WebDriver driver = session.getDriver();
+            // 访问网页
+            driver.get(webUrl);
+            // 等待页面加载完成且网络空闲
+            waitForNetworkIdle(driver);
+            // 截图
+            byte[] screenshotBytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            // 离开页面，释放页面资源，下一次借用时不会残留上一个应用的状态
+            driver.get("about:blank");
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.info("网页截图完成: {}，浏览器: {}", webUrl, session.getId());
+            return screenshotBytes;
+        } catch (RuntimeException e) {
+            broken = e instanceof WebDriverException;
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            browserSessionPool.giveBack(session, broken);
+        }
+    }
+
+    /**
+     * 等待页面就绪且网络空闲，超时后继续截图
+     */
+    private void waitForNetworkIdle(WebDriver driver) throws InterruptedException {
+        JavascriptExecutor javascriptExecutor = (JavascriptExecutor) driver;
+        long deadline = System.currentTimeMillis() + readyTimeoutMs;
+        long lastCount = -1;
+        long stableSince = System.currentTimeMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Object result = javascriptExecutor.executeScript(NETWORK_STATE_SCRIPT);
+            long count = result instanceof Number number ? number.longValue() : -1;
+            long now = System.currentTimeMillis();
+            if (count < 0 || count != lastCount) {
+                lastCount = count;
+                stableSince = now;
+            } else if (now - stableSince >= networkIdleMs) {
+                log.info("页面加载完成");
+                return;
+            }
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+        log.warn("等待页面网络空闲超时，继续执行截图");
+    }
+
+    private Timer captureTimer(String result) {
+        return Timer.builder("screenshot_capture_seconds")
+                .description("网页截图耗时（不含排队）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
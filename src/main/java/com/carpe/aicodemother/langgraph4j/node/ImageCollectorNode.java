@@ -59,8 +59,7 @@ public class ImageCollectorNode {
                 if (plan.getDiagramTasks() != null) {
                     MermaidDiagramTool diagramTool = SpringContextUtil.getBean(MermaidDiagramTool.class);
                     for (ImageCollectionPlan.DiagramTask task : plan.getDiagramTasks()) {
-                        futures.add(CompletableFuture.supplyAsync(() ->
-                                diagramTool.generateMermaidDiagram(task.mermaidCode(), task.description())));
+                        futures.add(diagramTool.generateMermaidDiagramAsync(task.mermaidCode(), task.description()));
                     }
                 }
                 // 并发执行Logo生成
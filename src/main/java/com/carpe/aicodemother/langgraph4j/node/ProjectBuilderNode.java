@@ -1,6 +1,6 @@
 package com.carpe.aicodemother.langgraph4j.node;
 
-import com.carpe.aicodemother.core.builder.VueProjectBuilder;
+import com.carpe.aicodemother.core.builder.VueBuildScheduler;
 import com.carpe.aicodemother.exception.BusinessException;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.langgraph4j.state.WorkflowContext;
@@ -29,11 +29,11 @@ public class ProjectBuilderNode {
             String generatedCodeDir = context.getGeneratedCodeDir();
             CodeGenTypeEnum generationType = context.getGenerationType();
             String buildResultDir;
-            // 一定是 Vue 项目类型：使用 VueProjectBuilder 进行构建
+            // 一定是 Vue 项目类型：通过构建调度器进行构建
             try {
-                VueProjectBuilder vueBuilder = SpringContextUtil.getBean(VueProjectBuilder.class);
+                VueBuildScheduler vueBuildScheduler = SpringContextUtil.getBean(VueBuildScheduler.class);
                 // 执行 Vue 项目构建（npm install + npm run build）
-                boolean buildSuccess = vueBuilder.buildProject(generatedCodeDir);
+                boolean buildSuccess = vueBuildScheduler.buildAndWait(generatedCodeDir);
                 if (buildSuccess) {
                     // 构建成功，返回 dist 目录路径
                     buildResultDir = generatedCodeDir + File.separator + "dist";
@@ -11,6 +11,7 @@ import org.bsc.langgraph4j.prebuilt.MessagesState;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
 
@@ -26,12 +27,12 @@ public class DiagramCollectorNode {
                 if (plan != null && plan.getDiagramTasks() != null) {
                     MermaidDiagramTool diagramTool = SpringContextUtil.getBean(MermaidDiagramTool.class);
                     log.info("开始并发生成架构图，任务数: {}", plan.getDiagramTasks().size());
+                    List<CompletableFuture<List<ImageResource>>> futures = new ArrayList<>();
                     for (ImageCollectionPlan.DiagramTask task : plan.getDiagramTasks()) {
-                        List<ImageResource> images = diagramTool.generateMermaidDiagram(
-                                task.mermaidCode(), task.description());
-                        if (images != null) {
-                            diagrams.addAll(images);
-                        }
+                        futures.add(diagramTool.generateMermaidDiagramAsync(task.mermaidCode(), task.description()));
+                    }
+                    for (CompletableFuture<List<ImageResource>> future : futures) {
+                        diagrams.addAll(future.join());
                     }
                     log.info("架构图生成完成，共生成 {} 张图片", diagrams.size());
                 }
@@ -1,7 +1,6 @@
 package com.carpe.aicodemother.langgraph4j.tools;
 
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.RuntimeUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.system.SystemUtil;
@@ -12,14 +11,18 @@ import com.carpe.aicodemother.langgraph4j.model.ImageResource;
 import com.carpe.aicodemother.manager.CosManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @Component
@@ -27,33 +30,58 @@ public class MermaidDiagramTool {
 
     @Resource
     private CosManager cosManager;
-    
+
+    /**
+     * 执行 Mermaid CLI 转换的线程（等待外部进程，使用虚拟线程）
+     */
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
     @Tool("将 Mermaid 代码转换为架构图图片，用于展示系统结构和技术关系")
     public List<ImageResource> generateMermaidDiagram(@P("Mermaid 图表代码") String mermaidCode,
                                                       @P("架构图描述") String description) {
+        return generateMermaidDiagramAsync(mermaidCode, description).join();
+    }
+
+    /**
+     * 异步生成架构图：转换和上传都不阻塞调用方，失败时返回空列表
+     *
+     * @param mermaidCode Mermaid 图表代码
+     * @param description 架构图描述
+     * @return 架构图图片
+     */
+    public CompletableFuture<List<ImageResource>> generateMermaidDiagramAsync(String mermaidCode, String description) {
         if (StrUtil.isBlank(mermaidCode)) {
-            return new ArrayList<>();
-        }
-        try {
-            // 转换为SVG图片
-            File diagramFile = convertMermaidToSvg(mermaidCode);
-            // 上传到COS
-            String keyName = String.format("/mermaid/%s/%s",
-                    RandomUtil.randomString(5), diagramFile.getName());
-            String cosUrl = cosManager.uploadFile(keyName, diagramFile);
-            // 清理临时文件
-            FileUtil.del(diagramFile);
-            if (StrUtil.isNotBlank(cosUrl)) {
-                return Collections.singletonList(ImageResource.builder()
-                        .category(ImageCategoryEnum.ARCHITECTURE)
-                        .description(description)
-                        .url(cosUrl)
-                        .build());
-            }
-        } catch (Exception e) {
-            log.error("生成架构图失败: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(new ArrayList<>());
         }
-        return new ArrayList<>();
+        return CompletableFuture.supplyAsync(() -> convertMermaidToSvg(mermaidCode), executor)
+                .thenCompose(diagramFile -> {
+                    try {
+                        // 按内容寻址上传到COS，相同的架构图只上传一次
+                        return cosManager.uploadFileContentAddressedAsync("/mermaid", diagramFile);
+                    } finally {
+                        // 文件内容已读入内存，清理临时文件
+                        FileUtil.del(diagramFile);
+                    }
+                })
+                .handle((cosUrl, throwable) -> {
+                    if (throwable != null) {
+                        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                        log.error("生成架构图失败: {}", cause.getMessage(), cause);
+                        return new ArrayList<>();
+                    }
+                    List<ImageResource> images = new ArrayList<>();
+                    images.add(ImageResource.builder()
+                            .category(ImageCategoryEnum.ARCHITECTURE)
+                            .description(description)
+                            .url(cosUrl)
+                            .build());
+                    return images;
+                });
     }
 
     /**
@@ -0,0 +1,223 @@
+package com.carpe.aicodemother.manager;
+
+import cn.hutool.core.util.IdUtil;
+import com.carpe.aicodemother.mapper.ChatHistoryMapper;
+import com.carpe.aicodemother.model.entity.ChatHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 对话历史异步批量写入器（write-behind）
+ * 对话消息先进入有界队列，由后台线程批量取出后通过 ChatHistoryMapper 执行多行 INSERT，
+ * 避免在请求线程和 Reactor 完成回调线程上阻塞等待 JDBC
+ * <p>
+ * - 队列满时降级为调用方线程同步写入，保证不丢消息
+ * - 应用关闭时把队列中剩余的消息全部写入
+ * - 暴露队列长度、写入数、降级次数、批量写入耗时等指标
+ */
+@Component
+@Slf4j
+public class ChatHistoryBatchWriter {
+
+    @Resource
+    private ChatHistoryMapper chatHistoryMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 队列容量
+     */
+    @Value("${chat-history.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * 单次批量写入的最大条数
+     */
+    @Value("${chat-history.writer.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 队列为空时的最长等待时间（毫秒）
+     */
+    @Value("${chat-history.writer.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private BlockingQueue<ChatHistory> queue;
+
+    /**
+     * 保证同一时间只有一个线程在取队列并写库（后台线程或主动 flush 的调用方），
+     * 使 flush 返回时之前提交的消息一定已经落库；公平锁避免 flush 被后台线程饿死。
+     * 只在取出并写入时持有，等待新消息期间不持有
+     */
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+
+    private volatile boolean running = false;
+
+    private Thread writerThread;
+
+    private Counter writtenCounter;
+
+    private Counter rejectedCounter;
+
+    private Counter failedCounter;
+
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("chat_history_writer_queue_size", queue, BlockingQueue::size)
+                .description("对话历史写入队列长度")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("chat_history_writer_written_total")
+                .description("对话历史批量写入条数")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("chat_history_writer_rejected_total")
+                .description("队列已满降级为同步写入的次数")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("chat_history_writer_failed_total")
+                .description("对话历史写入失败条数")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("chat_history_writer_batch_duration_seconds")
+                .description("对话历史批量写入耗时")
+                .register(meterRegistry);
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("chat-history-writer")
+                .daemon(true)
+                .start(this::runLoop);
+        log.info("对话历史批量写入器已启动，队列容量: {}, 批量大小: {}", queueCapacity, batchSize);
+    }
+
+    /**
+     * 提交一条对话历史
+     *
+     * @param chatHistory 对话历史（id 与创建时间在此处确定，保证顺序）
+     */
+    public void submit(ChatHistory chatHistory) {
+        LocalDateTime now = LocalDateTime.now();
+        if (chatHistory.getId() == null) {
+            chatHistory.setId(IdUtil.getSnowflakeNextId());
+        }
+        if (chatHistory.getCreateTime() == null) {
+            chatHistory.setCreateTime(now);
+        }
+        chatHistory.setUpdateTime(now);
+        chatHistory.setIsDelete(0);
+        if (running && queue.offer(chatHistory)) {
+            // 唤醒等待中的后台线程
+            LockSupport.unpark(writerThread);
+            return;
+        }
+        // 队列已满（或已关闭）：在调用方线程同步写入，形成反压
+        rejectedCounter.increment();
+        log.warn("对话历史写入队列已满，降级为同步写入, appId: {}", chatHistory.getAppId());
+        writeBatch(List.of(chatHistory));
+    }
+
+    /**
+     * 立即把队列中的消息全部写入数据库（读取前需要保证可见性时调用）
+     */
+    public void flush() {
+        List<ChatHistory> batch = new ArrayList<>(batchSize);
+        writeLock.lock();
+        try {
+            while (queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 应用关闭时停止后台线程，并写入剩余消息
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        log.info("对话历史批量写入器已关闭");
+    }
+
+    private void runLoop() {
+        List<ChatHistory> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (running) {
+            // 在锁外等待新消息，不阻塞 flush；消息只在持锁时取出，保证 flush 返回时没有取出但未写入的消息
+            if (queue.isEmpty()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                // 关闭信号，剩余消息由 shutdown 统一写入
+                return;
+            }
+            try {
+                writeLock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (queue.drainTo(batch, batchSize) > 0) {
+                    writeBatch(batch);
+                }
+            } catch (Exception e) {
+                log.error("对话历史批量写入线程异常: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 多行 INSERT 写入一批消息，失败时逐条重试
+     */
+    private void writeBatch(List<ChatHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            batchTimer.record(() -> chatHistoryMapper.insertBatch(batch));
+            writtenCounter.increment(batch.size());
+        } catch (Exception e) {
+            log.error("批量写入对话历史失败，逐条重试, 条数: {}, 错误: {}", batch.size(), e.getMessage());
+            for (ChatHistory chatHistory : batch) {
+                try {
+                    chatHistoryMapper.insert(chatHistory);
+                    writtenCounter.increment();
+                } catch (Exception ex) {
+                    failedCounter.increment();
+                    log.error("写入对话历史失败, appId: {}, 错误: {}", chatHistory.getAppId(), ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -1,79 +1,466 @@
 package com.carpe.aicodemother.manager;
 
-import com.carpe.aicodemother.config.CosClientConfig;
-import com.qcloud.cos.COSClient;
-import com.qcloud.cos.model.PutObjectRequest;
-import com.qcloud.cos.model.PutObjectResult;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.carpe.aicodemother.exception.BusinessException;
+import com.carpe.aicodemother.exception.ErrorCode;
+import com.carpe.aicodemother.manager.storage.ObjectStorageClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.qcloud.cos.exception.ClientExceptionConstants;
+import com.qcloud.cos.exception.CosClientException;
+import com.qcloud.cos.exception.CosServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * COS对象存储管理器
- *
+ * 上传在虚拟线程中异步执行，不阻塞调用方：
+ * <p>
+ * - 同时进行的上传数有上限，超出的上传排队等待
+ * - 网络错误、服务端 5xx / 429 按指数退避重试
+ * - 暴露上传耗时、上传字节数、重试次数和进行中的上传数等指标
+ * - 按内容寻址上传：对象键由内容的 SHA-256 决定，已上传过的内容（本地 Caffeine + Redis 索引）直接返回已有 URL
+ * <p>
+ * 内容索引按存储空间（存储桶 + 访问域名）区分，命中索引时不再检查对象是否仍然存在，
+ * 因此约定内容寻址的对象不会从存储桶中删除；如需清理（如配置生命周期规则），
+ * 需同时删除对应存储空间的索引（cos:content:{存储空间}:*），或把 cos.content-cache.ttl-days 设置得比对象保留时间更短
  */
 @Component
 @Slf4j
 public class CosManager {
 
+    /**
+     * Redis 内容索引键前缀，完整的键为 {前缀}{存储空间}:{对象键}，值为对象的访问URL
+     */
+    private static final String CONTENT_INDEX_KEY_PREFIX = "cos:content:";
+
+    /**
+     * COS SDK 标记为连接、超时类的客户端错误码
+     */
+    private static final Set<String> RETRYABLE_CLIENT_ERROR_CODES = Set.of(
+            ClientExceptionConstants.CONNECTION_TIMEOUT,
+            ClientExceptionConstants.HOST_CONNECT,
+            ClientExceptionConstants.UNKNOWN_HOST,
+            ClientExceptionConstants.SOCKET_TIMEOUT,
+            ClientExceptionConstants.REQUEST_TIMEOUT);
+
+    @Resource
+    private ObjectStorageClient objectStorageClient;
+
     @Resource
-    private CosClientConfig cosClientConfig;
+    private MeterRegistry meterRegistry;
 
     @Resource
-    private COSClient cosClient;
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 同时进行的最大上传数
+     */
+    @Value("${cos.upload.max-concurrent:8}")
+    private int maxConcurrentUploads;
+
+    /**
+     * 单个对象的最大尝试次数（含首次）
+     */
+    @Value("${cos.upload.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * 首次重试前的等待时间（毫秒），之后每次翻倍
+     */
+    @Value("${cos.upload.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    /**
+     * 本地内容索引的最大条目数
+     */
+    @Value("${cos.content-cache.local-max-size:10000}")
+    private long contentIndexMaxSize = 10_000;
+
+    /**
+     * Redis 内容索引的保留天数
+     */
+    @Value("${cos.content-cache.ttl-days:30}")
+    private long contentIndexTtlDays = 30;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Semaphore permits;
+
+    private Timer successTimer;
+
+    private Timer failureTimer;
+
+    private DistributionSummary uploadBytesSummary;
+
+    private Counter retryCounter;
+
+    /**
+     * 存储空间标识，作为内容索引键的一部分
+     */
+    private String contentIndexNamespace;
 
     /**
-     * 上传对象
+     * 内容索引键 -> 访问URL
+     */
+    private Cache<String, String> contentIndex;
+
+    /**
+     * 正在上传的内容寻址对象，相同内容的并发上传共享同一次上传
+     */
+    private final ConcurrentMap<String, CompletableFuture<String>> contentUploadsInFlight = new ConcurrentHashMap<>();
+
+    private Counter contentLocalHitCounter;
+
+    private Counter contentRedisHitCounter;
+
+    private Counter contentMissCounter;
+
+    private Counter contentCoalescedCounter;
+
+    @PostConstruct
+    public void init() {
+        maxConcurrentUploads = Math.max(1, maxConcurrentUploads);
+        permits = new Semaphore(maxConcurrentUploads, true);
+        successTimer = uploadTimer("success");
+        failureTimer = uploadTimer("failure");
+        uploadBytesSummary = DistributionSummary.builder("cos_upload_bytes")
+                .description("上传到对象存储的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        retryCounter = Counter.builder("cos_upload_retries_total")
+                .description("对象存储上传重试次数")
+                .register(meterRegistry);
+        Gauge.builder("cos_upload_in_flight", this, manager -> manager.maxConcurrentUploads - manager.permits.availablePermits())
+                .description("进行中的对象存储上传数")
+                .register(meterRegistry);
+        Gauge.builder("cos_upload_waiting", permits, Semaphore::getQueueLength)
+                .description("等待上传名额的对象数")
+                .register(meterRegistry);
+        contentIndexNamespace = objectStorageClient.getNamespace();
+        contentIndex = Caffeine.newBuilder()
+                .maximumSize(contentIndexMaxSize)
+                .expireAfterAccess(Duration.ofDays(1))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, contentIndex, "cos_content_index");
+        contentLocalHitCounter = contentCounter("local_hit");
+        contentRedisHitCounter = contentCounter("redis_hit");
+        contentMissCounter = contentCounter("miss");
+        contentCoalescedCounter = contentCounter("coalesced");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 异步上传文件
+     *
+     * @param key  COS对象键（完整路径）
+     * @param file 要上传的文件
+     * @return 文件的访问URL；失败时以 BusinessException 异常结束
+     */
+    public CompletableFuture<String> uploadFileAsync(String key, File file) {
+        return submit(key, file.length(), () -> objectStorageClient.putFile(key, file));
+    }
+
+    /**
+     * 异步上传内存中的数据（不经过本地临时文件）
      *
-     * @param key  唯一键
-     * @param file 文件
-     * @return 上传结果
+     * @param key         COS对象键（完整路径）
+     * @param bytes       数据
+     * @param contentType 内容类型
+     * @return 访问URL；失败时以 BusinessException 异常结束
      */
-    public PutObjectResult putObject(String key, File file) {
-        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, file);
-        return cosClient.putObject(putObjectRequest);
+    public CompletableFuture<String> uploadBytesAsync(String key, byte[] bytes, String contentType) {
+        return submit(key, bytes.length, () -> objectStorageClient.putBytes(key, bytes, contentType));
     }
 
     /**
-     * 上传文件到 COS 并返回访问 URL
+     * 上传文件到 COS 并返回访问 URL（阻塞直到完成）
      *
      * @param key  COS对象键（完整路径）
      * @param file 要上传的文件
      * @return 文件的访问URL，失败返回null
      */
     public String uploadFile(String key, File file) {
-        // 上传文件
-        PutObjectResult result = putObject(key, file);
-        if (result != null) {
-            // 构建访问URL
-            String url;
-            if (cosClientConfig.getHost() != null && !cosClientConfig.getHost().isEmpty()) {
-                // 如果配置了自定义域名，使用自定义域名
-                String host = cosClientConfig.getHost();
-                // 如果host已经包含协议，直接使用；否则添加https://
-                if (host.startsWith("http://") || host.startsWith("https://")) {
-                    // 确保host末尾没有斜杠，key开头没有斜杠，避免双斜杠问题
-                    host = host.endsWith("/") ? host.substring(0, host.length() - 1) : host;
-                    key = key.startsWith("/") ? key.substring(1) : key;
-                    url = String.format("%s/%s", host, key);
-                } else {
-                    // 确保host末尾没有斜杠，key开头没有斜杠，避免双斜杠问题
-                    host = host.endsWith("/") ? host.substring(0, host.length() - 1) : host;
-                    key = key.startsWith("/") ? key.substring(1) : key;
-                    url = String.format("https://%s/%s", host, key);
-                }
+        return await(uploadFileAsync(key, file), key);
+    }
+
+    /**
+     * 上传内存中的数据到 COS 并返回访问 URL（阻塞直到完成）
+     *
+     * @param key         COS对象键（完整路径）
+     * @param bytes       数据
+     * @param contentType 内容类型
+     * @return 文件的访问URL，失败返回null
+     */
+    public String uploadBytes(String key, byte[] bytes, String contentType) {
+        return await(uploadBytesAsync(key, bytes, contentType), key);
+    }
+
+    /**
+     * 按内容寻址异步上传：对象键为 {prefix}/{内容 SHA-256}{extension}，相同内容只上传一次
+     *
+     * @param prefix      对象键前缀（如 screenshots）
+     * @param bytes       数据
+     * @param extension   文件扩展名（含点，如 .jpg）
+     * @param contentType 内容类型
+     * @return 访问URL；失败时以 BusinessException 异常结束
+     */
+    public CompletableFuture<String> uploadContentAddressedAsync(String prefix, byte[] bytes, String extension,
+                                                                 String contentType) {
+        String key = contentAddressedKey(prefix, DigestUtil.sha256Hex(bytes), extension);
+        String url = lookupContentIndex(key);
+        if (url != null) {
+            return CompletableFuture.completedFuture(url);
+        }
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = contentUploadsInFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            contentCoalescedCounter.increment();
+            return existing;
+        }
+        contentMissCounter.increment();
+        CompletableFuture<String> upload;
+        try {
+            upload = uploadBytesAsync(key, bytes, contentType);
+        } catch (RuntimeException e) {
+            // 提交失败（如执行器已关闭）时也要结束共享的 future，否则后续相同内容的上传会一直等待
+            contentUploadsInFlight.remove(key, created);
+            created.completeExceptionally(e);
+            return created;
+        }
+        upload.whenComplete((uploadedUrl, throwable) -> {
+            if (throwable == null) {
+                indexContent(key, uploadedUrl);
+            }
+            contentUploadsInFlight.remove(key, created);
+            if (throwable == null) {
+                created.complete(uploadedUrl);
             } else {
-                // 使用默认的COS域名格式
-                url = String.format("https://%s.cos.%s.myqcloud.com/%s", 
-                    cosClientConfig.getBucket(), cosClientConfig.getRegion(), key);
+                created.completeExceptionally(throwable instanceof CompletionException ? throwable.getCause() : throwable);
             }
-            log.info("文件上传COS成功: {} -> {}", file.getName(), url);
+        });
+        return created;
+    }
+
+    /**
+     * 按内容寻址上传（阻塞直到完成）
+     *
+     * @param prefix      对象键前缀（如 screenshots）
+     * @param bytes       数据
+     * @param extension   文件扩展名（含点，如 .jpg）
+     * @param contentType 内容类型
+     * @return 访问URL，失败返回null
+     */
+    public String uploadContentAddressed(String prefix, byte[] bytes, String extension, String contentType) {
+        return await(uploadContentAddressedAsync(prefix, bytes, extension, contentType), prefix);
+    }
+
+    /**
+     * 按内容寻址异步上传文件，扩展名和内容类型取自文件名；文件内容在调用时读入内存，返回后即可删除文件
+     *
+     * @param prefix 对象键前缀（如 /mermaid）
+     * @param file   文件
+     * @return 访问URL；失败时以 BusinessException 异常结束
+     */
+    public CompletableFuture<String> uploadFileContentAddressedAsync(String prefix, File file) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            log.error("读取待上传文件失败: {}", file, e);
+            return CompletableFuture.failedFuture(new BusinessException(ErrorCode.SYSTEM_ERROR, "读取待上传文件失败"));
+        }
+        String extension = FileUtil.extName(file);
+        String contentType = FileUtil.getMimeType(file.getName());
+        return uploadContentAddressedAsync(prefix, bytes, extension.isEmpty() ? "" : "." + extension,
+                contentType != null ? contentType : "application/octet-stream");
+    }
+
+    private String contentAddressedKey(String prefix, String hash, String extension) {
+        String normalizedPrefix = prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+        return normalizedPrefix + "/" + hash + extension;
+    }
+
+    /**
+     * 查询内容索引：先查本地，再查 Redis（其他实例上传过的内容）
+     */
+    private String lookupContentIndex(String key) {
+        String indexKey = contentIndexKey(key);
+        String url = contentIndex.getIfPresent(indexKey);
+        if (url != null) {
+            contentLocalHitCounter.increment();
             return url;
-        } else {
-            log.error("文件上传COS失败，返回结果为空");
+        }
+        try {
+            url = stringRedisTemplate.opsForValue().get(CONTENT_INDEX_KEY_PREFIX + indexKey);
+        } catch (Exception e) {
+            log.warn("读取内容索引失败: {}, 错误: {}", key, e.getMessage());
             return null;
         }
+        if (url != null) {
+            contentIndex.put(indexKey, url);
+            contentRedisHitCounter.increment();
+        }
+        return url;
+    }
+
+    private void indexContent(String key, String url) {
+        String indexKey = contentIndexKey(key);
+        contentIndex.put(indexKey, url);
+        try {
+            stringRedisTemplate.opsForValue().set(CONTENT_INDEX_KEY_PREFIX + indexKey, url,
+                    Duration.ofDays(contentIndexTtlDays));
+        } catch (Exception e) {
+            log.warn("保存内容索引失败: {}, 错误: {}", key, e.getMessage());
+        }
+    }
+
+    private String contentIndexKey(String key) {
+        return contentIndexNamespace + ":" + key;
+    }
+
+    private String await(CompletableFuture<String> future, String key) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            log.error("文件上传COS失败: {}", key, e.getCause());
+            return null;
+        }
+    }
+
+    private CompletableFuture<String> submit(String key, long size, UploadAction action) {
+        return CompletableFuture.supplyAsync(() -> uploadWithRetry(key, size, action), executor);
+    }
+
+    private String uploadWithRetry(String key, long size, UploadAction action) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传被中断");
+        }
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    action.upload();
+                    break;
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    if (attempt >= maxAttempts || !isRetryable(e)) {
+                        failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        log.error("文件上传COS失败: {}，已尝试 {} 次", key, attempt, e);
+                        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件上传失败: " + key);
+                    }
+                    retryCounter.increment();
+                    long backoff = backoffMillis(attempt);
+                    log.warn("文件上传COS失败，{} 毫秒后重试: {}, 错误: {}", backoff, key, e.getMessage());
+                    Thread.sleep(backoff);
+                }
+            }
+        } catch (InterruptedException e) {
+            // 上传或退避等待中被中断（如应用关闭），恢复中断标记后结束，不再重试
+            Thread.currentThread().interrupt();
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传被中断: " + key);
+        } finally {
+            permits.release();
+        }
+        successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        uploadBytesSummary.record(size);
+        String url = objectStorageClient.getObjectUrl(key);
+        log.info("文件上传COS成功: {} 字节 -> {}", size, url);
+        return url;
+    }
+
+    /**
+     * 只重试网络 IO 错误、超时、限流和服务端错误；
+     * 服务端明确拒绝的请求（如鉴权失败）和客户端错误（如参数错误、文件不存在）重试也不会成功
+     */
+    private boolean isRetryable(Exception e) {
+        if (e instanceof CosServiceException serviceException) {
+            int statusCode = serviceException.getStatusCode();
+            return statusCode >= 500 || statusCode == 429;
+        }
+        if (e instanceof CosClientException clientException
+                && RETRYABLE_CLIENT_ERROR_CODES.contains(clientException.getErrorCode())) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FileNotFoundException || cause instanceof NoSuchFileException) {
+                return false;
+            }
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 指数退避，附加最多 50% 的随机抖动，避免同时失败的上传同时重试
+     */
+    private long backoffMillis(int attempt) {
+        long backoff = retryBackoffMs << Math.min(attempt - 1, 10);
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private Counter contentCounter(String result) {
+        return Counter.builder("cos_content_upload_total")
+                .description("按内容寻址上传的请求数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Timer uploadTimer(String result) {
+        return Timer.builder("cos_upload_duration_seconds")
+                .description("对象存储上传耗时（含重试，不含排队）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 单次上传动作
+     */
+    @FunctionalInterface
+    private interface UploadAction {
+
+        void upload() throws Exception;
     }
 }
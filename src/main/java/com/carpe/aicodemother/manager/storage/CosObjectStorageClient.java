@@ -0,0 +1,134 @@
+package com.carpe.aicodemother.manager.storage;
+
+import com.carpe.aicodemother.config.CosClientConfig;
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PutObjectRequest;
+import com.qcloud.cos.transfer.TransferManager;
+import com.qcloud.cos.transfer.TransferManagerConfiguration;
+import com.qcloud.cos.transfer.Upload;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 腾讯云 COS 客户端
+ * 通过 TransferManager 上传，超过阈值的对象自动分块并行上传
+ */
+@Component
+public class CosObjectStorageClient implements ObjectStorageClient {
+
+    @Resource
+    private CosClientConfig cosClientConfig;
+
+    @Resource
+    private COSClient cosClient;
+
+    /**
+     * 超过该大小的对象使用分块上传
+     */
+    @Value("${cos.upload.multipart-threshold-bytes:8388608}")
+    private long multipartThresholdBytes;
+
+    /**
+     * 分块大小
+     */
+    @Value("${cos.upload.part-size-bytes:4194304}")
+    private long partSizeBytes;
+
+    /**
+     * 分块上传的线程数（所有上传共享）
+     */
+    @Value("${cos.upload.transfer-threads:8}")
+    private int transferThreads;
+
+    private TransferManager transferManager;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService transferExecutor = Executors.newFixedThreadPool(Math.max(1, transferThreads),
+                runnable -> Thread.ofPlatform()
+                        .name("cos-transfer-" + threadIndex.incrementAndGet())
+                        .daemon(true)
+                        .unstarted(runnable));
+        // 不随 TransferManager 一起关闭 COSClient，由 Spring 管理其生命周期
+        transferManager = new TransferManager(cosClient, transferExecutor, false);
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setMultipartUploadThreshold(multipartThresholdBytes);
+        configuration.setMinimumUploadPartSize(partSizeBytes);
+        transferManager.setConfiguration(configuration);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transferManager.shutdownNow(false);
+    }
+
+    @Override
+    public void putFile(String key, File file) throws Exception {
+        waitForUpload(transferManager.upload(new PutObjectRequest(cosClientConfig.getBucket(), key, file)));
+    }
+
+    @Override
+    public void putBytes(String key, byte[] bytes, String contentType) throws Exception {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        metadata.setContentType(contentType);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key,
+                new ByteArrayInputStream(bytes), metadata);
+        waitForUpload(transferManager.upload(putObjectRequest));
+    }
+
+    /**
+     * 等待上传完成；等待被中断时取消上传，避免分块任务继续占用传输线程
+     */
+    private void waitForUpload(Upload upload) throws InterruptedException {
+        try {
+            upload.waitForUploadResult();
+        } catch (InterruptedException e) {
+            upload.abort();
+            throw e;
+        }
+    }
+
+    @Override
+    public String getObjectUrl(String key) {
+        String url;
+        if (cosClientConfig.getHost() != null && !cosClientConfig.getHost().isEmpty()) {
+            // 如果配置了自定义域名，使用自定义域名
+            String host = cosClientConfig.getHost();
+            // 如果host已经包含协议，直接使用；否则添加https://
+            if (host.startsWith("http://") || host.startsWith("https://")) {
+                // 确保host末尾没有斜杠，key开头没有斜杠，避免双斜杠问题
+                host = host.endsWith("/") ? host.substring(0, host.length() - 1) : host;
+                key = key.startsWith("/") ? key.substring(1) : key;
+                url = String.format("%s/%s", host, key);
+            } else {
+                // 确保host末尾没有斜杠，key开头没有斜杠，避免双斜杠问题
+                host = host.endsWith("/") ? host.substring(0, host.length() - 1) : host;
+                key = key.startsWith("/") ? key.substring(1) : key;
+                url = String.format("https://%s/%s", host, key);
+            }
+        } else {
+            // 使用默认的COS域名格式
+            url = String.format("https://%s.cos.%s.myqcloud.com/%s",
+                    cosClientConfig.getBucket(), cosClientConfig.getRegion(), key);
+        }
+        return url;
+    }
+
+    @Override
+    public String getNamespace() {
+        return cosClientConfig.getBucket() + "@" + URI.create(getObjectUrl("")).getAuthority();
+    }
+}
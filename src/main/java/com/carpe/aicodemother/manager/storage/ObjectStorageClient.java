@@ -0,0 +1,44 @@
+package com.carpe.aicodemother.manager.storage;
+
+import java.io.File;
+
+/**
+ * 对象存储客户端
+ * 只负责单次上传，重试、并发控制和指标由 CosManager 统一处理；测试中可替换为本地文件系统实现
+ */
+public interface ObjectStorageClient {
+
+    /**
+     * 上传文件（阻塞直到完成）
+     *
+     * @param key  对象键
+     * @param file 文件
+     * @throws Exception 上传失败
+     */
+    void putFile(String key, File file) throws Exception;
+
+    /**
+     * 上传内存中的数据（阻塞直到完成）
+     *
+     * @param key         对象键
+     * @param bytes       数据
+     * @param contentType 内容类型
+     * @throws Exception 上传失败
+     */
+    void putBytes(String key, byte[] bytes, String contentType) throws Exception;
+
+    /**
+     * 获取对象的访问 URL
+     *
+     * @param key 对象键
+     * @return 访问URL
+     */
+    String getObjectUrl(String key);
+
+    /**
+     * 获取存储空间标识（存储桶 + 访问域名），用于区分不同存储空间下同名对象的索引
+     *
+     * @return 存储空间标识
+     */
+    String getNamespace();
+}
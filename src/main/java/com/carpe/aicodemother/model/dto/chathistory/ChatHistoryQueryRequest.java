@@ -42,5 +42,11 @@ public class ChatHistoryQueryRequest extends PageRequest implements Serializable
      */
     private LocalDateTime lastCreateTime;
 
+    /**
+     * 游标查询 - 最后一条记录的 id
+     * 与 lastCreateTime 组成 (createTime, id) 复合游标，避免同一时间戳的记录被跳过
+     */
+    private Long lastId;
+
     private static final long serialVersionUID = 1L;
 }
@@ -2,6 +2,8 @@ package com.carpe.aicodemother.monitor;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.function.UnaryOperator;
+
 @Slf4j
 public class MonitorContextHolder {
 
@@ -27,4 +29,28 @@ public class MonitorContextHolder {
     public static void clearContext() {
         CONTEXT_HOLDER.remove();
     }
+
+    /**
+     * 捕获当前线程的监控上下文，返回的装饰器会在任务执行期间把该上下文绑定到执行线程，结束后恢复原值
+     * 用于把上下文传递到工具执行、后续模型调用等异步任务中
+     */
+    public static UnaryOperator<Runnable> capture() {
+        MonitorContext captured = CONTEXT_HOLDER.get();
+        if (captured == null) {
+            return UnaryOperator.identity();
+        }
+        return task -> () -> {
+            MonitorContext previous = CONTEXT_HOLDER.get();
+            CONTEXT_HOLDER.set(captured);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CONTEXT_HOLDER.remove();
+                } else {
+                    CONTEXT_HOLDER.set(previous);
+                }
+            }
+        };
+    }
 }
@@ -36,7 +36,7 @@ public interface ChatHistoryService extends IService<ChatHistory> {
     boolean deleteByAppId(Long appId);
 
     /**
-     * 添加对话历史
+     * 添加对话历史（异步批量落库）
      *
      * @param appId       应用 id
      * @param message     消息
@@ -59,6 +59,20 @@ public interface ChatHistoryService extends IService<ChatHistory> {
                                                LocalDateTime lastCreateTime,
                                                User loginUser);
 
+    /**
+     * 按 (createTime, id) 复合游标分页查询某 APP 的对话记录，不统计总数
+     *
+     * @param appId          应用 id
+     * @param pageSize       页面大小
+     * @param lastCreateTime 上一页最后一条记录的创建时间
+     * @param lastId         上一页最后一条记录的 id
+     * @param loginUser      登录用户
+     * @return 对话记录（totalRow 不计算）
+     */
+    Page<ChatHistory> listAppChatHistoryByCursor(Long appId, int pageSize,
+                                                 LocalDateTime lastCreateTime, Long lastId,
+                                                 User loginUser);
+
     /**
      * 获取查询包装类
      *
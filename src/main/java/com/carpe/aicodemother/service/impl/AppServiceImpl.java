@@ -2,17 +2,19 @@ package com.carpe.aicodemother.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.carpe.aicodemother.ai.AiCodeGenTypeRoutingService;
 import com.carpe.aicodemother.ai.AiCodeGenTypeRoutingServiceFactory;
 import com.carpe.aicodemother.ai.AppNameGeneratorService;
 import com.carpe.aicodemother.ai.AppNameGeneratorServiceFactory;
+import com.carpe.aicodemother.ai.model.message.StreamMessage;
 import com.carpe.aicodemother.constant.AppConstant;
 import com.carpe.aicodemother.core.AiCodeGeneratorFacade;
-import com.carpe.aicodemother.core.builder.VueProjectBuilder;
+import com.carpe.aicodemother.core.builder.VueBuildScheduler;
+import com.carpe.aicodemother.core.deployer.DeployPublisher;
 import com.carpe.aicodemother.core.handler.StreamHandlerExecutor;
+import com.carpe.aicodemother.core.screenshot.AppCoverScheduler;
 import com.carpe.aicodemother.exception.BusinessException;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.exception.ThrowUtils;
@@ -29,7 +31,6 @@ import com.carpe.aicodemother.monitor.MonitorContext;
 import com.carpe.aicodemother.monitor.MonitorContextHolder;
 import com.carpe.aicodemother.service.AppService;
 import com.carpe.aicodemother.service.ChatHistoryService;
-import com.carpe.aicodemother.service.ScreenshotService;
 import com.carpe.aicodemother.service.UserService;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
@@ -41,6 +42,7 @@ import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.io.Serializable;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -65,10 +67,13 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     private StreamHandlerExecutor streamHandlerExecutor;
 
     @Resource
-    private VueProjectBuilder vueProjectBuilder;
+    private VueBuildScheduler vueBuildScheduler;
 
     @Resource
-    private ScreenshotService screenshotService;
+    private DeployPublisher deployPublisher;
+
+    @Resource
+    private AppCoverScheduler appCoverScheduler;
 
     @Resource
     private AiCodeGenTypeRoutingServiceFactory aiCodeGenTypeRoutingServiceFactory;
@@ -107,7 +112,7 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
                         .build()
         );
         // 7. 调用 AI 生成代码（流式）
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeMessageStream(message, codeGenTypeEnum, appId);
         // 8. 收集 AI 响应内容并在完成后记录到对话历史
         return streamHandlerExecutor.doExecute(codeStream, chatHistoryService, appId, loginUser, codeGenTypeEnum)
                 .doFinally(signalType -> {
@@ -180,8 +185,8 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 7. Vue 项目特殊处理：执行构建
         CodeGenTypeEnum codeGenTypeEnum = CodeGenTypeEnum.getEnumByValue(codeGenType);
         if (codeGenTypeEnum == CodeGenTypeEnum.VUE_PROJECT) {
-            // Vue 项目需要构建
-            boolean buildSuccess = vueProjectBuilder.buildProject(sourceDirPath);
+            // Vue 项目需要构建：dist 与源码一致时直接复用生成完成时的构建结果，否则经调度队列重新构建
+            boolean buildSuccess = vueBuildScheduler.ensureBuilt(sourceDirPath);
             ThrowUtils.throwIf(!buildSuccess, ErrorCode.SYSTEM_ERROR, "Vue 项目构建失败，请重试");
             // 检查 dist 目录是否存在
             File distDir = new File(sourceDirPath, "dist");
@@ -189,10 +194,9 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
             // 构建完成后，需要将构建后的文件复制到部署目录
             sourceDir = distDir;
         }
-        // 8. 复制文件到部署目录
-        String deployDirPath = AppConstant.CODE_DEPLOY_ROOT_DIR + File.separator + deployKey;
+        // 8. 发布为新版本并切换到部署目录（硬链接 + 原子切换符号链接，不复制文件）
         try {
-            FileUtil.copyContent(sourceDir, new File(deployDirPath), true);
+            deployPublisher.publish(sourceDir.toPath(), deployKey);
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用部署失败：" + e.getMessage());
         }
@@ -206,8 +210,33 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 10. 得到可访问的 URL 地址
         String appDeployUrl = String.format("%s/%s/", deployHost, deployKey);
 //        String appDeployUrl = String.format("%s/%s", AppConstant.CODE_DEPLOY_HOST, deployKey);
-        // 11. 异步生成截图并且更新应用封面
-        generateAppScreenshotAsync(appId, appDeployUrl);
+        // 11. 异步生成截图并且更新应用封面（部署内容未变化时沿用当前封面）
+        appCoverScheduler.submit(appId, appDeployUrl, Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR, deployKey));
+        return appDeployUrl;
+    }
+
+    @Override
+    public String rollbackDeploy(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR, "用户未登录");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        // 仅本人可以回滚自己的应用
+        if (!app.getUserId().equals(loginUser.getId())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限回滚该应用");
+        }
+        String deployKey = app.getDeployKey();
+        ThrowUtils.throwIf(StrUtil.isBlank(deployKey), ErrorCode.OPERATION_ERROR, "应用尚未部署");
+        Integer release;
+        try {
+            release = deployPublisher.rollback(deployKey);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用回滚失败：" + e.getMessage());
+        }
+        ThrowUtils.throwIf(release == null, ErrorCode.OPERATION_ERROR, "没有可回滚的历史版本");
+        String appDeployUrl = String.format("%s/%s/", deployHost, deployKey);
+        // 回滚后页面内容变化，重新生成封面（回滚到的版本与封面一致时沿用）
+        appCoverScheduler.submit(appId, appDeployUrl, Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR, deployKey));
         return appDeployUrl;
     }
 
@@ -219,17 +248,8 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
      */
     @Override
     public void generateAppScreenshotAsync(Long appId, String appUrl) {
-        // 使用虚拟线程并执行
-        Thread.startVirtualThread(() -> {
-            // 调用截图服务生成截图并上传
-            String screenshotUrl = screenshotService.generateAndUploadScreenshot(appUrl);
-            // 更新数据库的封面
-            App updateApp = new App();
-            updateApp.setId(appId);
-            updateApp.setCover(screenshotUrl);
-            boolean updated = this.updateById(updateApp);
-            ThrowUtils.throwIf(!updated, ErrorCode.OPERATION_ERROR, "更新应用封面字段失败");
-        });
+        // 经封面调度器异步执行，短时间内的重复请求合并为一次截图
+        appCoverScheduler.submit(appId, appUrl, null);
     }
 
     @Override
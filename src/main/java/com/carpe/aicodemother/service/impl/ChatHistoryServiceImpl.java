@@ -2,11 +2,13 @@ package com.carpe.aicodemother.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
+import com.carpe.aicodemother.ai.memory.ChatMemoryHydrator;
 import com.carpe.aicodemother.constant.AppConstant;
 import com.carpe.aicodemother.constant.UserConstant;
 import com.carpe.aicodemother.exception.BusinessException;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.exception.ThrowUtils;
+import com.carpe.aicodemother.manager.ChatHistoryBatchWriter;
 import com.carpe.aicodemother.model.dto.chathistory.ChatHistoryQueryRequest;
 import com.carpe.aicodemother.model.entity.App;
 import com.carpe.aicodemother.model.entity.User;
@@ -28,6 +30,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 对话历史 服务层实现。
@@ -42,6 +45,12 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Lazy
     private AppService appService;
 
+    @Resource
+    private ChatHistoryBatchWriter chatHistoryBatchWriter;
+
+    @Resource
+    private ChatMemoryHydrator chatMemoryHydrator;
+
     @Override
     public boolean addChatMessage(Long appId, String message, String messageType, Long userId) {
         ThrowUtils.throwIf(appId == null, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
@@ -57,7 +66,9 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                 .messageType(messageType)
                 .userId(userId)
                 .build();
-        return this.save(chatHistory);
+        // 交给批量写入器异步落库，不阻塞调用方
+        chatHistoryBatchWriter.submit(chatHistory);
+        return true;
     }
 
     /**
@@ -78,6 +89,7 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         Long appId = chatHistoryQueryRequest.getAppId();
         Long userId = chatHistoryQueryRequest.getUserId();
         LocalDateTime lastCreateTime = chatHistoryQueryRequest.getLastCreateTime();
+        Long lastId = chatHistoryQueryRequest.getLastId();
         String sortField = chatHistoryQueryRequest.getSortField();
         String sortOrder = chatHistoryQueryRequest.getSortOrder();
         // 拼接查询条件
@@ -86,16 +98,22 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                 .eq("messageType", messageType)
                 .eq("appId", appId)
                 .eq("userId", userId);
-        // 游标查询逻辑 - 只使用 createTime 作为游标
+        // 游标查询逻辑 - 使用 (createTime, id) 复合游标，没有 lastId 时退化为只按 createTime
         if (lastCreateTime != null) {
-            queryWrapper.lt("createTime", lastCreateTime);
+            if (lastId != null) {
+                queryWrapper.and((Consumer<QueryWrapper>) cursor -> cursor.lt("createTime", lastCreateTime)
+                        .or((Consumer<QueryWrapper>) sameTime -> sameTime.eq("createTime", lastCreateTime).lt("id", lastId)));
+            } else {
+                queryWrapper.lt("createTime", lastCreateTime);
+            }
         }
         // 排序
         if (StrUtil.isNotBlank(sortField)) {
             queryWrapper.orderBy(sortField, "ascend".equals(sortOrder));
         } else {
-            // 默认按创建时间降序排列
-            queryWrapper.orderBy("createTime", false);
+            // 默认按创建时间降序排列，同一时间按 id 降序，保证游标顺序稳定
+            queryWrapper.orderBy("createTime", false)
+                    .orderBy("id", false);
         }
         return queryWrapper;
     }
@@ -111,12 +129,15 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Override
     public int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount) {
         try {
+            // 先把队列中尚未落库的消息写入，保证当前用户消息可见（下面的偏移量依赖于此）
+            chatHistoryBatchWriter.flush();
             // 构架数据库查询条件
             // 注意: limit(1, maxCount) 中的 1 表示偏移量, 跳过最新的 1 条记录
             // 这样做是为了排除当前正在处理的用户消息, 避免重复加载
             QueryWrapper queryWrapper = QueryWrapper.create()
                     .eq(ChatHistory::getAppId, appId)
                     .orderBy(ChatHistory::getCreateTime, false)
+                    .orderBy(ChatHistory::getId, false)
                     .limit(1, maxCount);
             // 执行查询, 获取历史记录列表
             List<ChatHistory> historyList = this.list(queryWrapper);
@@ -166,15 +187,27 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Override
     public boolean deleteByAppId(Long appId) {
         ThrowUtils.throwIf(appId == null || appId < 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        // 先写入队列中的消息，避免删除后又被异步写入
+        chatHistoryBatchWriter.flush();
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .eq("appId", appId);
-        return this.remove(queryWrapper);
+        boolean removed = this.remove(queryWrapper);
+        // 历史已删除，Redis 中的对话记忆也不再可信
+        chatMemoryHydrator.invalidate(appId);
+        return removed;
     }
 
     @Override
     public Page<ChatHistory> listAppChatHistoryByPage(Long appId, int pageSize,
                                                       LocalDateTime lastCreateTime,
                                                       User loginUser) {
+        return listAppChatHistoryByCursor(appId, pageSize, lastCreateTime, null, loginUser);
+    }
+
+    @Override
+    public Page<ChatHistory> listAppChatHistoryByCursor(Long appId, int pageSize,
+                                                        LocalDateTime lastCreateTime, Long lastId,
+                                                        User loginUser) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
         ThrowUtils.throwIf(pageSize <= 0 || pageSize > 50, ErrorCode.PARAMS_ERROR, "页面大小必须在1-50之间");
         ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR);
@@ -197,9 +230,16 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
             ChatHistoryQueryRequest queryRequest = new ChatHistoryQueryRequest();
             queryRequest.setAppId(appId);
             queryRequest.setLastCreateTime(lastCreateTime);
-            QueryWrapper queryWrapper = this.getQueryWrapper(queryRequest);
-            // 查询数据
-            Page<ChatHistory> result = this.page(Page.of(1, pageSize), queryWrapper);
+            queryRequest.setLastId(lastId);
+            // 第一页需要看到刚刚提交的消息
+            if (lastCreateTime == null) {
+                chatHistoryBatchWriter.flush();
+            }
+            QueryWrapper queryWrapper = this.getQueryWrapper(queryRequest)
+                    .limit(pageSize);
+            // 键集分页：走 (appId, createTime, id) 索引直接定位，不执行 COUNT 查询
+            List<ChatHistory> records = this.list(queryWrapper);
+            Page<ChatHistory> result = new Page<>(records, 1, pageSize, Page.INIT_VALUE);
             log.info("成功查询到对话历史 - appId: {}, 记录数: {}", appId, result.getRecords().size());
             return result;
         } else {
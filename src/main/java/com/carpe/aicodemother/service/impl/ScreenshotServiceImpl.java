@@ -1,89 +1,48 @@
-
 package com.carpe.aicodemother.service.impl;
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
+import com.carpe.aicodemother.core.screenshot.ScreenshotImageEncoder;
+import com.carpe.aicodemother.core.screenshot.WebScreenshotCapturer;
 import com.carpe.aicodemother.exception.ErrorCode;
 import com.carpe.aicodemother.exception.ThrowUtils;
 import com.carpe.aicodemother.manager.CosManager;
 import com.carpe.aicodemother.service.ScreenshotService;
-import com.carpe.aicodemother.utils.WebScreenshotUtils;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
-
 @Service
 @Slf4j
 public class ScreenshotServiceImpl implements ScreenshotService {
 
+    /**
+     * 截图的对象存储键前缀，格式：screenshots/{内容 SHA-256}.jpg
+     */
+    private static final String SCREENSHOT_KEY_PREFIX = "screenshots";
+
     @Resource
     private CosManager cosManager;
 
+    @Resource
+    private WebScreenshotCapturer webScreenshotCapturer;
+
+    @Resource
+    private ScreenshotImageEncoder screenshotImageEncoder;
+
     @Override
     public String generateAndUploadScreenshot(String webUrl) {
         ThrowUtils.throwIf(StrUtil.isBlank(webUrl), ErrorCode.PARAMS_ERROR, "网页URL不能为空");
         log.info("开始生成网页截图，URL: {}", webUrl);
-        // 1. 生成本地截图
-        String localScreenshotPath = WebScreenshotUtils.saveWebPageScreenshot(webUrl);
-        ThrowUtils.throwIf(StrUtil.isBlank(localScreenshotPath), ErrorCode.OPERATION_ERROR, "本地截图生成失败");
-        try {
-            // 2. 上传到对象存储
-            String cosUrl = uploadScreenshotToCos(localScreenshotPath);
-            ThrowUtils.throwIf(StrUtil.isBlank(cosUrl), ErrorCode.OPERATION_ERROR, "截图上传对象存储失败");
-            log.info("网页截图生成并上传成功: {} -> {}", webUrl, cosUrl);
-            return cosUrl;
-        } finally {
-            // 3. 清理本地文件
-            cleanupLocalFile(localScreenshotPath);
-        }
-    }
-
-    /**
-     * 上传截图到对象存储
-     *
-     * @param localScreenshotPath 本地截图路径
-     * @return 对象存储访问URL，失败返回null
-     */
-    private String uploadScreenshotToCos(String localScreenshotPath) {
-        if (StrUtil.isBlank(localScreenshotPath)) {
-            return null;
-        }
-        File screenshotFile = new File(localScreenshotPath);
-        if (!screenshotFile.exists()) {
-            log.error("截图文件不存在: {}", localScreenshotPath);
-            return null;
-        }
-        // 生成 COS 对象键
-        String fileName = UUID.randomUUID().toString().substring(0, 8) + "_compressed.jpg";
-        String cosKey = generateScreenshotKey(fileName);
-        return cosManager.uploadFile(cosKey, screenshotFile);
-    }
-
-    /**
-     * 生成截图的对象存储键
-     * 格式：/screenshots/2025/07/31/filename.jpg
-     */
-    private String generateScreenshotKey(String fileName) {
-        String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        return String.format("screenshots/%s/%s", datePath, fileName);
-    }
-
-    /**
-     * 清理本地文件
-     *
-     * @param localFilePath 本地文件路径
-     */
-    private void cleanupLocalFile(String localFilePath) {
-        File localFile = new File(localFilePath);
-        if (localFile.exists()) {
-            File parentDir = localFile.getParentFile();
-            FileUtil.del(parentDir);
-            log.info("本地截图文件已清理: {}", localFilePath);
-        }
+        // 1. 通过浏览器池截图
+        byte[] screenshotBytes = webScreenshotCapturer.capture(webUrl);
+        ThrowUtils.throwIf(screenshotBytes == null, ErrorCode.OPERATION_ERROR, "网页截图失败");
+        // 2. 在内存中缩放并编码为 JPEG
+        byte[] imageBytes = screenshotImageEncoder.encode(screenshotBytes);
+        // 3. 按内容寻址上传到对象存储，相同的截图不会重复上传
+        String cosUrl = cosManager.uploadContentAddressed(SCREENSHOT_KEY_PREFIX, imageBytes,
+                ScreenshotImageEncoder.FILE_SUFFIX, ScreenshotImageEncoder.CONTENT_TYPE);
+        ThrowUtils.throwIf(StrUtil.isBlank(cosUrl), ErrorCode.OPERATION_ERROR, "截图上传对象存储失败");
+        log.info("网页截图生成并上传成功: {} -> {}，大小: {} 字节", webUrl, cosUrl, imageBytes.length);
+        return cosUrl;
     }
 }
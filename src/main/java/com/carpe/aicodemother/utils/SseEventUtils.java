@@ -0,0 +1,118 @@
+package com.carpe.aicodemother.utils;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * SSE 事件编码工具类
+ * 将流式文本直接转义写入 {"d":"..."} 格式的 JSON 帧，不再为每个 token 构造 Map 并走一次通用 JSON 序列化；
+ * 并支持在很小的时间/数量窗口内把多个细碎 token 合并为一帧，降低高并发生成时每个 token 的编码与写出开销
+ */
+public class SseEventUtils {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final String FRAME_PREFIX = "{\"d\":\"";
+
+    private static final String FRAME_SUFFIX = "\"}";
+
+    /**
+     * 帧缓冲区初始容量，流内复用
+     */
+    private static final int INITIAL_BUFFER_CAPACITY = 256;
+
+    /**
+     * 将文本流编码为 SSE 数据帧流
+     *
+     * @param contentFlux    文本流
+     * @param coalesceWindow 合并窗口时长，为 0 或 null 时不合并
+     * @param maxChunks      单帧最多合并的片段数
+     * @return SSE 事件流
+     */
+    public static Flux<ServerSentEvent<String>> toDataEvents(Flux<String> contentFlux, Duration coalesceWindow, int maxChunks) {
+        // 每个订阅（即每个 SSE 连接）复用一个缓冲区
+        return Flux.defer(() -> {
+            StringBuilder frameBuffer = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+            Flux<String> frames;
+            if (coalesceWindow == null || coalesceWindow.isZero() || maxChunks <= 1) {
+                frames = contentFlux.map(chunk -> encodeFrame(frameBuffer, List.of(chunk)));
+            } else {
+                // 使用公平模式：客户端消费慢时超时的片段留在缓冲区等待下游请求，而不是因缺少请求而报错
+                frames = contentFlux.bufferTimeout(maxChunks, coalesceWindow, true)
+                        .filter(chunks -> !chunks.isEmpty())
+                        .map(chunks -> encodeFrame(frameBuffer, chunks));
+            }
+            return frames.map(data -> ServerSentEvent.<String>builder()
+                    .data(data)
+                    .build());
+        });
+    }
+
+    /**
+     * 将多个文本片段编码为一个 {"d":"..."} 帧
+     *
+     * @param buffer 复用的缓冲区
+     * @param chunks 文本片段
+     * @return JSON 帧
+     */
+    public static String encodeFrame(StringBuilder buffer, List<String> chunks) {
+        buffer.setLength(0);
+        buffer.append(FRAME_PREFIX);
+        for (String chunk : chunks) {
+            escapeJson(chunk, buffer);
+        }
+        buffer.append(FRAME_SUFFIX);
+        return buffer.toString();
+    }
+
+    /**
+     * 按 JSON 字符串规则转义并追加到缓冲区
+     *
+     * @param text   原始文本
+     * @param buffer 目标缓冲区
+     */
+    public static void escapeJson(String text, StringBuilder buffer) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case '"' -> replacement = "\\\"";
+                case '\\' -> replacement = "\\\\";
+                case '\n' -> replacement = "\\n";
+                case '\r' -> replacement = "\\r";
+                case '\t' -> replacement = "\\t";
+                case '\b' -> replacement = "\\b";
+                case '\f' -> replacement = "\\f";
+                default -> {
+                    // 其他控制字符以及 JS 中的行分隔符需要 unicode 转义
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        replacement = null;
+                    } else {
+                        continue;
+                    }
+                }
+            }
+            // 整段拷贝无需转义的部分
+            buffer.append(text, start, i);
+            if (replacement != null) {
+                buffer.append(replacement);
+            } else {
+                buffer.append("\\u")
+                        .append(HEX_DIGITS[(c >> 12) & 0xF])
+                        .append(HEX_DIGITS[(c >> 8) & 0xF])
+                        .append(HEX_DIGITS[(c >> 4) & 0xF])
+                        .append(HEX_DIGITS[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        buffer.append(text, start, length);
+    }
+}
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 import static dev.langchain4j.internal.Utils.copy;
 import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
@@ -57,6 +58,7 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
     private final Map<String, ToolExecutor> toolExecutors;
     private final List<String> responseBuffer = new ArrayList<>();
     private final boolean hasOutputGuardrails;
+    private final UnaryOperator<Runnable> contextBinder;
 
     AiServiceStreamingResponseHandler(
             ChatExecutor chatExecutor,
@@ -93,6 +95,8 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         this.toolSpecifications = copy(toolSpecifications);
         this.toolExecutors = copy(toolExecutors);
         this.hasOutputGuardrails = context.guardrailService().hasOutputGuardrails(methodKey);
+        // Captured on the thread issuing the request, re-bound on the thread running the continuation
+        this.contextBinder = StreamingContinuationExecutor.captureContext();
     }
 
     @Override
@@ -113,14 +117,30 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onCompleteResponse(ChatResponse completeResponse) {
+        // Tools and completion callbacks may block (file I/O, project builds), so they run off the HTTP client thread
+        StreamingContinuationExecutor.execute(contextBinder.apply(() -> {
+            try {
+                handleCompleteResponse(completeResponse);
+            } catch (Exception e) {
+                onError(e);
+            }
+        }));
+    }
+
+    private void handleCompleteResponse(ChatResponse completeResponse) {
         AiMessage aiMessage = completeResponse.aiMessage();
         addToMemory(aiMessage);
 
         if (aiMessage.hasToolExecutionRequests()) {
-            for (ToolExecutionRequest toolExecutionRequest : aiMessage.toolExecutionRequests()) {
-                String toolName = toolExecutionRequest.name();
-                ToolExecutor toolExecutor = toolExecutors.get(toolName);
-                String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
+            List<ToolExecutionRequest> toolExecutionRequests = aiMessage.toolExecutionRequests();
+            // null when the requests have to be executed one by one below
+            List<String> parallelResults = StreamingContinuationExecutor.executeToolsInParallel(
+                    toolExecutionRequests, this::executeTool, contextBinder);
+            for (int i = 0; i < toolExecutionRequests.size(); i++) {
+                ToolExecutionRequest toolExecutionRequest = toolExecutionRequests.get(i);
+                String toolExecutionResult = parallelResults != null
+                        ? parallelResults.get(i)
+                        : executeTool(toolExecutionRequest);
                 ToolExecutionResultMessage toolExecutionResultMessage =
                         ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
                 addToMemory(toolExecutionResultMessage);
@@ -199,6 +219,11 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         }
     }
 
+    private String executeTool(ToolExecutionRequest toolExecutionRequest) {
+        ToolExecutor toolExecutor = toolExecutors.get(toolExecutionRequest.name());
+        return toolExecutor.execute(toolExecutionRequest, memoryId);
+    }
+
     private ChatMemory getMemory() {
         return getMemory(memoryId);
     }
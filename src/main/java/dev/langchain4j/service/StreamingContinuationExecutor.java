@@ -0,0 +1,118 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Executes the continuation of a streaming AI Service call (tool execution, the follow-up model call and the
+ * completion callbacks) once the model has finished streaming a response.
+ * <p>
+ * By default the continuation runs inline on the thread that delivered {@code onCompleteResponse}, which is usually
+ * a thread owned by the HTTP client. Applications can configure a dedicated executor (e.g. virtual threads) so that
+ * slow tools do not block HTTP client threads, together with a context capturer that snapshots caller-side context
+ * (thread-locals) when a request is issued and re-binds it around the continuation.
+ * <p>
+ * Optionally, several tool execution requests returned in one {@code AiMessage} can be executed in parallel.
+ * Requests are grouped by a conflict key (e.g. the file path they touch): groups run concurrently on the configured
+ * executor, requests within a group run one after another, and results are returned in the original order.
+ */
+public final class StreamingContinuationExecutor {
+
+    private static volatile Executor executor = Runnable::run;
+
+    private static volatile Supplier<UnaryOperator<Runnable>> contextCapturer = UnaryOperator::identity;
+
+    private static volatile Function<ToolExecutionRequest, String> conflictKeyResolver;
+
+    private StreamingContinuationExecutor() {
+    }
+
+    /**
+     * @param executor        executor running continuations, {@code null} to run them inline
+     * @param contextCapturer captures the current thread's context and returns a decorator that re-binds it,
+     *                        {@code null} to disable context propagation
+     */
+    public static void configure(Executor executor, Supplier<UnaryOperator<Runnable>> contextCapturer) {
+        StreamingContinuationExecutor.executor = executor != null ? executor : Runnable::run;
+        StreamingContinuationExecutor.contextCapturer = contextCapturer != null ? contextCapturer : UnaryOperator::identity;
+    }
+
+    /**
+     * Enables parallel tool execution.
+     *
+     * @param conflictKeyResolver returns the key of the resource a request touches (requests with the same key are
+     *                            serialised), or {@code null} if the request cannot safely run concurrently with
+     *                            others; passing {@code null} disables parallel execution
+     */
+    public static void configureParallelTools(Function<ToolExecutionRequest, String> conflictKeyResolver) {
+        StreamingContinuationExecutor.conflictKeyResolver = conflictKeyResolver;
+    }
+
+    /**
+     * Captures the context of the calling thread.
+     */
+    static UnaryOperator<Runnable> captureContext() {
+        return contextCapturer.get();
+    }
+
+    static void execute(Runnable continuation) {
+        executor.execute(continuation);
+    }
+
+    /**
+     * Executes the given tool requests in parallel if enabled and safe.
+     *
+     * @param requests      tool execution requests, in the order returned by the model
+     * @param toolRunner    executes a single request and returns its result
+     * @param contextBinder re-binds the caller's context on the threads running the tools
+     * @return results in the order of {@code requests}, or {@code null} if the requests must be executed sequentially
+     * by the caller (parallel mode disabled, a single conflict group, or a request without a conflict key)
+     */
+    static List<String> executeToolsInParallel(List<ToolExecutionRequest> requests,
+                                               Function<ToolExecutionRequest, String> toolRunner,
+                                               UnaryOperator<Runnable> contextBinder) {
+        Function<ToolExecutionRequest, String> resolver = conflictKeyResolver;
+        if (resolver == null || requests.size() < 2) {
+            return null;
+        }
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String key = resolver.apply(requests.get(i));
+            if (key == null) {
+                return null;
+            }
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        if (groups.size() < 2) {
+            return null;
+        }
+        String[] results = new String[requests.size()];
+        CompletableFuture<?>[] futures = groups.values().stream()
+                .map(indexes -> CompletableFuture.runAsync(contextBinder.apply(() -> {
+                    for (int index : indexes) {
+                        results[index] = toolRunner.apply(requests.get(index));
+                    }
+                }), executor))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+}
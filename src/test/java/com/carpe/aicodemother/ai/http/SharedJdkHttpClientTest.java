@@ -0,0 +1,172 @@
+package com.carpe.aicodemother.ai.http;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.exception.TimeoutException;
+import dev.langchain4j.http.client.HttpMethod;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.sse.DefaultServerSentEventParser;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedJdkHttpClientTest {
+
+    private final HttpClient sharedHttpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(15))
+            .build();
+
+    private HttpServer server;
+
+    /**
+     * 用于结束卡住的响应
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (server != null) {
+            server.stop(0);
+        }
+        sharedHttpClient.close();
+    }
+
+    @Test
+    void stalledStreamTimesOut() throws Exception {
+        // 返回一个事件后不再输出，也不结束响应
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stream", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            body.write("data: hello\n\n".getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+
+        SharedJdkHttpClient client = new SharedJdkHttpClientBuilder(sharedHttpClient)
+                .connectTimeout(Duration.ofSeconds(15))
+                .readTimeout(Duration.ofMillis(300))
+                .build();
+        List<String> events = new CopyOnWriteArrayList<>();
+        CompletableFuture<Throwable> error = new CompletableFuture<>();
+        client.execute(HttpRequest.builder()
+                .method(HttpMethod.GET)
+                .url("http://127.0.0.1:" + server.getAddress().getPort() + "/stream")
+                .build(), new DefaultServerSentEventParser(), new ServerSentEventListener() {
+            @Override
+            public void onEvent(ServerSentEvent event) {
+                events.add(event.data());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.complete(throwable);
+            }
+        });
+
+        Throwable throwable = error.get(5, TimeUnit.SECONDS);
+        assertInstanceOf(TimeoutException.class, throwable);
+        assertEquals(List.of("hello"), events);
+    }
+
+    @Test
+    void concurrentStreamsDoNotExhaustFixedExecutor() throws Exception {
+        // 每个流先输出一个事件，等所有流都被客户端读到第一个事件后再输出第二个事件并结束：
+        // 只有各个流同时被读取时才能全部完成；流的数量超过公共线程池和 HttpClient 执行器的线程数
+        int streams = Math.max(3, ForkJoinPool.getCommonPoolParallelism() + 2);
+        CountDownLatch allStreamsReading = new CountDownLatch(streams);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/stream", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write("data: first\n\n".getBytes(StandardCharsets.UTF_8));
+                body.flush();
+                allStreamsReading.await(10, TimeUnit.SECONDS);
+                body.write("data: second\n\n".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+
+        // 执行器只有一个线程；读取流时占用有限的线程（HttpClient 的执行器或回调所在的公共线程池）会让其他流无法推进
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try (HttpClient fixedPoolClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(15))
+                .executor(executor)
+                .build()) {
+            SharedJdkHttpClient client = new SharedJdkHttpClientBuilder(fixedPoolClient)
+                    .connectTimeout(Duration.ofSeconds(15))
+                    .readTimeout(Duration.ofSeconds(30))
+                    .build();
+            List<CompletableFuture<Integer>> closed = new ArrayList<>();
+            for (int i = 0; i < streams; i++) {
+                CompletableFuture<Integer> done = new CompletableFuture<>();
+                List<String> events = new CopyOnWriteArrayList<>();
+                client.execute(HttpRequest.builder()
+                        .method(HttpMethod.GET)
+                        .url("http://127.0.0.1:" + server.getAddress().getPort() + "/stream")
+                        .build(), new DefaultServerSentEventParser(), new ServerSentEventListener() {
+                    @Override
+                    public void onEvent(ServerSentEvent event) {
+                        events.add(event.data());
+                        if (events.size() == 1) {
+                            allStreamsReading.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void onClose() {
+                        done.complete(events.size());
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        done.completeExceptionally(throwable);
+                    }
+                });
+                closed.add(done);
+            }
+            assertTrue(allStreamsReading.await(5, TimeUnit.SECONDS));
+            for (CompletableFuture<Integer> done : closed) {
+                assertEquals(2, done.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsConnectTimeoutDifferentFromSharedClient() {
+        SharedJdkHttpClientBuilder builder = new SharedJdkHttpClientBuilder(sharedHttpClient)
+                .connectTimeout(Duration.ofSeconds(3));
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+}
@@ -0,0 +1,144 @@
+package com.carpe.aicodemother.ai.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMemoryHydratorTest {
+
+    private static final long APP_ID = 42L;
+
+    private static final String MARKER_KEY = "chat_memory:hydrated:" + APP_ID;
+
+    private final Map<String, String> redis = new HashMap<>();
+
+    private final Map<String, Duration> expirations = new HashMap<>();
+
+    private final InMemoryChatMemoryStore chatMemoryStore = new InMemoryChatMemoryStore();
+
+    private ChatMemoryHydrator hydrator;
+
+    private MessageWindowChatMemory chatMemory;
+
+    @BeforeEach
+    void setUp() {
+        hydrator = new ChatMemoryHydrator();
+        ReflectionTestUtils.setField(hydrator, "stringRedisTemplate", fakeRedis(false));
+        ReflectionTestUtils.setField(hydrator, "chatMemoryStore", chatMemoryStore);
+        ReflectionTestUtils.setField(hydrator, "ttlSeconds", 3600L);
+        chatMemory = MessageWindowChatMemory.builder()
+                .id(APP_ID)
+                .chatMemoryStore(chatMemoryStore)
+                .maxMessages(20)
+                .build();
+    }
+
+    @Test
+    void coldMemoryIsNotWarm() {
+        chatMemory.add(UserMessage.from("u1"));
+        // 没有标记：记忆可能只加载了一部分，需要回源
+        assertFalse(hydrator.isWarm(APP_ID, chatMemory));
+    }
+
+    @Test
+    void hydratedMemoryIsWarmAndMarkerIsRenewed() {
+        chatMemory.add(UserMessage.from("u1"));
+        chatMemory.add(AiMessage.from("a1"));
+        hydrator.markHydrated(APP_ID);
+        assertEquals(Duration.ofSeconds(3600), expirations.remove(MARKER_KEY));
+
+        assertTrue(hydrator.isWarm(APP_ID, chatMemory));
+        assertEquals(Duration.ofSeconds(3600), expirations.get(MARKER_KEY));
+    }
+
+    @Test
+    void emptyMemoryOrOldMarkerIsNotWarm() {
+        hydrator.markHydrated(APP_ID);
+        // 标记还在但 Redis 中的记忆已过期
+        assertFalse(hydrator.isWarm(APP_ID, chatMemory));
+
+        chatMemory.add(UserMessage.from("u1"));
+        redis.put(MARKER_KEY, "1");
+        expirations.clear();
+        // 加载逻辑升级前写入的标记
+        assertFalse(hydrator.isWarm(APP_ID, chatMemory));
+        assertFalse(expirations.containsKey(MARKER_KEY));
+    }
+
+    @Test
+    void invalidateClearsMarkerAndMessages() {
+        chatMemory.add(UserMessage.from("u1"));
+        hydrator.markHydrated(APP_ID);
+        hydrator.invalidate(APP_ID);
+
+        assertFalse(redis.containsKey(MARKER_KEY));
+        assertEquals(List.of(), chatMemoryStore.getMessages(APP_ID));
+        assertFalse(hydrator.isWarm(APP_ID, chatMemory));
+    }
+
+    @Test
+    void redisFailureFallsBackToDatabase() {
+        chatMemory.add(UserMessage.from("u1"));
+        ReflectionTestUtils.setField(hydrator, "stringRedisTemplate", fakeRedis(true));
+        assertDoesNotThrow(() -> hydrator.markHydrated(APP_ID));
+        assertFalse(hydrator.isWarm(APP_ID, chatMemory));
+    }
+
+    /**
+     * 只支持 get / set / expire / delete 的 Redis，数据保存在 map 中；failing 为 true 时每次访问都抛出连接异常
+     */
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate fakeRedis(boolean failing) {
+        ValueOperations<String, String> operations = (ValueOperations<String, String>) Proxy.newProxyInstance(
+                ChatMemoryHydratorTest.class.getClassLoader(), new Class<?>[]{ValueOperations.class},
+                (proxy, method, args) -> {
+                    if (failing) {
+                        throw new RedisConnectionFailureException("connection refused");
+                    }
+                    return switch (method.getName()) {
+                        case "get" -> redis.get((String) args[0]);
+                        case "set" -> {
+                            redis.put((String) args[0], (String) args[1]);
+                            if (args.length > 2) {
+                                expirations.put((String) args[0], (Duration) args[2]);
+                            }
+                            yield null;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+        return new StringRedisTemplate() {
+            @Override
+            public ValueOperations<String, String> opsForValue() {
+                return operations;
+            }
+
+            @Override
+            public Boolean expire(String key, Duration timeout) {
+                expirations.put(key, timeout);
+                return redis.containsKey(key);
+            }
+
+            @Override
+            public Boolean delete(String key) {
+                expirations.remove(key);
+                return redis.remove(key) != null;
+            }
+        };
+    }
+}
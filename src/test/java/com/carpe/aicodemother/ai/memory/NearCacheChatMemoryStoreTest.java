@@ -0,0 +1,97 @@
+package com.carpe.aicodemother.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearCacheChatMemoryStoreTest {
+
+    private final InMemoryChatMemoryStore remote = new InMemoryChatMemoryStore();
+
+    private final AtomicInteger remoteReads = new AtomicInteger();
+
+    private final ChatMemoryStore countingRemote = new ChatMemoryStore() {
+        @Override
+        public List<ChatMessage> getMessages(Object memoryId) {
+            remoteReads.incrementAndGet();
+            return remote.getMessages(memoryId);
+        }
+
+        @Override
+        public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+            remote.updateMessages(memoryId, messages);
+        }
+
+        @Override
+        public void deleteMessages(Object memoryId) {
+            remote.deleteMessages(memoryId);
+        }
+    };
+
+    @Test
+    void readsAreServedLocallyAfterWriteThrough() {
+        NearCacheChatMemoryStore store = new NearCacheChatMemoryStore(countingRemote, message -> {
+        }, 1024 * 1024, Duration.ofMinutes(1));
+        store.updateMessages(1L, List.of(UserMessage.from("hi")));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, store.getMessages(1L).size());
+        }
+        assertEquals(0, remoteReads.get());
+        assertEquals(1, remote.getMessages(1L).size());
+    }
+
+    @Test
+    void remoteInvalidationDropsLocalCopy() {
+        List<String> published = new ArrayList<>();
+        NearCacheChatMemoryStore nodeA = new NearCacheChatMemoryStore(countingRemote, published::add, 1024 * 1024, Duration.ofMinutes(1));
+        NearCacheChatMemoryStore nodeB = new NearCacheChatMemoryStore(countingRemote, published::add, 1024 * 1024, Duration.ofMinutes(1));
+        nodeB.updateMessages(1L, List.of(UserMessage.from("hi")));
+        nodeA.updateMessages(1L, List.of(UserMessage.from("hi"), UserMessage.from("again")));
+        // 节点 A 广播的消息，A 自己忽略，B 失效本地副本
+        published.forEach(nodeA::onInvalidation);
+        published.forEach(nodeB::onInvalidation);
+        assertEquals(2, nodeB.getMessages(1L).size());
+        assertEquals(1, remoteReads.get());
+    }
+
+    @Test
+    void largeToolResultsAreBoundedByEstimatedSize() throws Exception {
+        NearCacheChatMemoryStore store = new NearCacheChatMemoryStore(countingRemote, message -> {
+        }, 16 * 1024, Duration.ofMinutes(1));
+        store.updateMessages(1L, List.of(UserMessage.from("hi")));
+        // 工具结果带有完整文件内容，超过本地缓存的大小上限，不会常驻内存
+        ToolExecutionRequest request = ToolExecutionRequest.builder().id("1").name("writeFile").arguments("{}").build();
+        store.updateMessages(2L, List.of(ToolExecutionResultMessage.from(request, "x".repeat(32 * 1024))));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (remoteReads.get() == 0 && System.nanoTime() < deadline) {
+            store.getMessages(2L);
+            Thread.sleep(10);
+        }
+        assertTrue(remoteReads.get() > 0);
+        int reads = remoteReads.get();
+        assertEquals(1, store.getMessages(1L).size());
+        assertEquals(reads, remoteReads.get());
+    }
+
+    @Test
+    void estimatesSizeFromMessageText() {
+        ToolExecutionRequest request = ToolExecutionRequest.builder().id("1").name("writeFile").arguments("{}").build();
+        int small = ChatMessageSizeEstimator.estimateBytes(List.of(UserMessage.from("hi")));
+        int large = ChatMessageSizeEstimator.estimateBytes(
+                List.of(ToolExecutionResultMessage.from(request, "x".repeat(10_000))));
+        assertTrue(small < 100);
+        assertTrue(large >= 20_000);
+    }
+}
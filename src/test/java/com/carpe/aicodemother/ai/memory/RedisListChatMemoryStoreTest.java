@@ -0,0 +1,48 @@
+package com.carpe.aicodemother.ai.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisListChatMemoryStoreTest {
+
+    private final ChatMessage system = SystemMessage.from("system");
+    private final ChatMessage u1 = UserMessage.from("u1");
+    private final ChatMessage a1 = AiMessage.from("a1");
+    private final ChatMessage u2 = UserMessage.from("u2");
+    private final ChatMessage a2 = AiMessage.from("a2");
+
+    @Test
+    void appendOnly() {
+        RedisListChatMemoryStore.Delta delta = RedisListChatMemoryStore.computeDelta(
+                List.of(system, u1), List.of(system, u1, a1, u2));
+        assertEquals(new RedisListChatMemoryStore.Delta(2, 0, 2), delta);
+    }
+
+    @Test
+    void windowEvictionAfterSystemMessage() {
+        RedisListChatMemoryStore.Delta delta = RedisListChatMemoryStore.computeDelta(
+                List.of(system, u1, a1, u2), List.of(system, u2, a2));
+        assertEquals(new RedisListChatMemoryStore.Delta(1, 2, 2), delta);
+    }
+
+    @Test
+    void windowEvictionWithoutSystemMessage() {
+        RedisListChatMemoryStore.Delta delta = RedisListChatMemoryStore.computeDelta(
+                List.of(u1, a1, u2), List.of(a1, u2, a2));
+        assertEquals(new RedisListChatMemoryStore.Delta(0, 1, 2), delta);
+    }
+
+    @Test
+    void replacedMessageReplacesWholeList() {
+        RedisListChatMemoryStore.Delta delta = RedisListChatMemoryStore.computeDelta(
+                List.of(system, u1, a1), List.of(SystemMessage.from("other"), u1, a1, u2));
+        assertEquals(new RedisListChatMemoryStore.Delta(0, 3, 0), delta);
+    }
+}
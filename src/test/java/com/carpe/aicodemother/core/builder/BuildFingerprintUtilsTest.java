@@ -0,0 +1,75 @@
+package com.carpe.aicodemother.core.builder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildFingerprintUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void dependencyHashCoversPackageJsonAndLockFile() throws Exception {
+        Files.writeString(tempDir.resolve("package.json"), "{\"name\":\"demo\"}");
+        String withoutLock = BuildFingerprintUtils.dependencyHash(tempDir);
+        assertEquals(withoutLock, BuildFingerprintUtils.dependencyHash(tempDir));
+        // 源码变化不影响依赖指纹
+        Files.writeString(tempDir.resolve("index.html"), "<html></html>");
+        assertEquals(withoutLock, BuildFingerprintUtils.dependencyHash(tempDir));
+        Files.writeString(tempDir.resolve("package-lock.json"), "{}");
+        assertNotEquals(withoutLock, BuildFingerprintUtils.dependencyHash(tempDir));
+    }
+
+    @Test
+    void sourceTreeHashIgnoresBuildOutputs() throws Exception {
+        Files.writeString(tempDir.resolve("package.json"), "{}");
+        Files.createDirectories(tempDir.resolve("src"));
+        Files.writeString(tempDir.resolve("src/App.vue"), "<template></template>");
+        String hash = BuildFingerprintUtils.sourceTreeHash(tempDir);
+        Files.createDirectories(tempDir.resolve("node_modules/vue"));
+        Files.writeString(tempDir.resolve("node_modules/vue/index.js"), "x");
+        Files.createDirectories(tempDir.resolve("dist"));
+        Files.writeString(tempDir.resolve("dist/index.html"), "x");
+        Files.writeString(tempDir.resolve(BuildFingerprintUtils.DIST_FINGERPRINT_FILE_NAME), "x");
+        assertEquals(hash, BuildFingerprintUtils.sourceTreeHash(tempDir));
+        Files.writeString(tempDir.resolve("src/App.vue"), "<template><div/></template>");
+        assertNotEquals(hash, BuildFingerprintUtils.sourceTreeHash(tempDir));
+    }
+
+    @Test
+    void sourceTreeHashDistinguishesPathFromContent() throws Exception {
+        Files.writeString(tempDir.resolve("a"), "bc");
+        String hash = BuildFingerprintUtils.sourceTreeHash(tempDir);
+        Files.delete(tempDir.resolve("a"));
+        Files.writeString(tempDir.resolve("ab"), "c");
+        assertNotEquals(hash, BuildFingerprintUtils.sourceTreeHash(tempDir));
+    }
+
+    @Test
+    void fileTreeHashDependsOnlyOnRelativePathsAndContent() throws Exception {
+        Path first = Files.createDirectories(tempDir.resolve("releases/1/assets"));
+        Path second = Files.createDirectories(tempDir.resolve("releases/2/assets"));
+        Files.writeString(first.resolve("app.js"), "x");
+        Files.writeString(second.resolve("app.js"), "x");
+        // 不同发布目录中内容相同的文件树指纹一致，不会跳过 dist 等目录
+        assertEquals(BuildFingerprintUtils.fileTreeHash(first.getParent()),
+                BuildFingerprintUtils.fileTreeHash(second.getParent()));
+        Files.createDirectories(second.resolveSibling("dist"));
+        Files.writeString(second.resolveSibling("dist/index.html"), "x");
+        assertNotEquals(BuildFingerprintUtils.fileTreeHash(first.getParent()),
+                BuildFingerprintUtils.fileTreeHash(second.getParent()));
+    }
+
+    @Test
+    void buildFingerprintChangesWithEitherPart() {
+        String fingerprint = BuildFingerprintUtils.buildFingerprint("deps", "src");
+        assertEquals(fingerprint, BuildFingerprintUtils.buildFingerprint("deps", "src"));
+        assertNotEquals(fingerprint, BuildFingerprintUtils.buildFingerprint("deps2", "src"));
+        assertNotEquals(fingerprint, BuildFingerprintUtils.buildFingerprint("deps", "src2"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.carpe.aicodemother.core.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildOutputBufferTest {
+
+    @Test
+    void keepsOnlyMostRecentLines() {
+        BuildOutputBuffer buffer = new BuildOutputBuffer(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.append("line" + i);
+        }
+        assertEquals(List.of("line3", "line4", "line5"), buffer.tail(10));
+        assertEquals(List.of("line4", "line5"), buffer.tail(2));
+        assertEquals(5, buffer.getTotalLines());
+    }
+
+    @Test
+    void truncatesLongLines() {
+        BuildOutputBuffer buffer = new BuildOutputBuffer(1);
+        buffer.append("x".repeat(5000));
+        assertTrue(buffer.tail(1).get(0).length() < 5000);
+    }
+}
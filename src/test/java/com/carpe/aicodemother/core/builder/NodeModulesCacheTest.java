@@ -0,0 +1,62 @@
+package com.carpe.aicodemother.core.builder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeModulesCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void evictsLeastRecentlyUsedUnlinkedEntries() throws Exception {
+        Path cacheRoot = tempDir.resolve("cache");
+        Path projectsRoot = tempDir.resolve("projects");
+        NodeModulesCache cache = new NodeModulesCache();
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "cacheRoot", cacheRoot);
+        ReflectionTestUtils.setField(cache, "projectsRoot", projectsRoot);
+        cache.init();
+
+        String hashA = install(cache, projectsRoot.resolve("vue_project_1"), "a");
+        String hashB = install(cache, projectsRoot.resolve("vue_project_2"), "b");
+        String hashC = install(cache, projectsRoot.resolve("vue_project_3"), "c");
+        // 三个条目都被项目链接，超过上限也不淘汰
+        assertTrue(Files.isDirectory(cacheRoot.resolve(hashA)));
+        assertTrue(Files.isDirectory(cacheRoot.resolve(hashB)));
+        assertTrue(Files.isDirectory(cacheRoot.resolve(hashC)));
+
+        // 项目 2 被删除后，其条目即使比仍在使用的条目 A 更新也会被淘汰，指向它的别名一并删除
+        Files.delete(projectsRoot.resolve("vue_project_2").resolve("node_modules"));
+        Files.setLastModifiedTime(cacheRoot.resolve(hashA), FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(cacheRoot.resolve(hashB), FileTime.fromMillis(2_000));
+        cache.evict();
+        assertTrue(Files.isDirectory(cacheRoot.resolve(hashA)));
+        assertFalse(Files.exists(cacheRoot.resolve(hashB)));
+        assertFalse(Files.exists(cacheRoot.resolve("alias-b"), LinkOption.NOFOLLOW_LINKS));
+        assertTrue(Files.isDirectory(cacheRoot.resolve(hashC)));
+        assertTrue(Files.isDirectory(projectsRoot.resolve("vue_project_1").resolve("node_modules")));
+    }
+
+    /**
+     * 模拟 npm install 后发布到缓存
+     */
+    private String install(NodeModulesCache cache, Path projectDir, String name) throws Exception {
+        Files.createDirectories(projectDir.resolve("node_modules").resolve(name));
+        Files.writeString(projectDir.resolve("package.json"), "{\"name\":\"" + name + "\"}");
+        cache.publish(projectDir, "alias-" + name);
+        assertTrue(Files.isSymbolicLink(projectDir.resolve("node_modules")));
+        return BuildFingerprintUtils.dependencyHash(projectDir);
+    }
+}
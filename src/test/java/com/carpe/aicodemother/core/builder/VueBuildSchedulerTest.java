@@ -0,0 +1,87 @@
+package com.carpe.aicodemother.core.builder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VueBuildSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final BlockingBuilder builder = new BlockingBuilder();
+
+    private final VueBuildScheduler scheduler = new VueBuildScheduler();
+
+    VueBuildSchedulerTest() {
+        ReflectionTestUtils.setField(scheduler, "vueProjectBuilder", builder);
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrentBuilds", 2);
+        scheduler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        builder.release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void requestsForSameProjectAreSerializedAndCoalesced() throws Exception {
+        CompletableFuture<Boolean> first = scheduler.submit("/tmp/project_a");
+        assertTrue(builder.started.await(5, TimeUnit.SECONDS));
+        // 第一次构建进行中，后续两次请求合并为一次排队构建
+        CompletableFuture<Boolean> second = scheduler.submit("/tmp/project_a");
+        CompletableFuture<Boolean> third = scheduler.submit("/tmp/project_a");
+        assertSame(second, third);
+        assertEquals(1, builder.calls.get());
+        builder.release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, builder.calls.get());
+        assertEquals(1.0, meterRegistry.get("vue_build_coalesced_total").counter().count());
+    }
+
+    @Test
+    void cancelInterruptsRunningBuild() throws Exception {
+        CompletableFuture<Boolean> build = scheduler.submit("/tmp/project_b");
+        assertTrue(builder.started.await(5, TimeUnit.SECONDS));
+        scheduler.cancel("/tmp/project_b");
+        assertFalse(build.get(5, TimeUnit.SECONDS));
+        assertTrue(builder.interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 在 release 之前一直阻塞的构建器
+     */
+    private static class BlockingBuilder extends VueProjectBuilder {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public boolean buildProject(String projectPath, BuildProgressListener listener) {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+                return true;
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                return false;
+            }
+        }
+    }
+}
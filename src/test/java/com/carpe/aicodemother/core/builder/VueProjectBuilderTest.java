@@ -0,0 +1,54 @@
+package com.carpe.aicodemother.core.builder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class VueProjectBuilderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void timeoutKillsWholeProcessTree() throws Exception {
+        assumeFalse(System.getProperty("os.name").toLowerCase().contains("windows"));
+        VueProjectBuilder builder = new VueProjectBuilder();
+        ReflectionTestUtils.setField(builder, "outputBufferLines", 20);
+        // 模拟 npm 启动的子进程：子进程记录自己的 pid 后长时间运行
+        Path pidFile = tempDir.resolve("child.pid");
+        List<String> command = List.of("sh", "-c", "sh -c 'echo $$ > " + pidFile + "; exec sleep 60' & wait");
+        long start = System.nanoTime();
+        Object result = ReflectionTestUtils.invokeMethod(builder, "executeCommand",
+                tempDir.toFile(), command, Map.of(), 1);
+        assertNotNull(result);
+        assertFalse((Boolean) ReflectionTestUtils.invokeMethod(result, "success"));
+        // 读取线程不会卡住，超时后很快返回
+        assertTrue(System.nanoTime() - start < 10_000_000_000L);
+        long childPid = Long.parseLong(Files.readString(pidFile).trim());
+        Optional<ProcessHandle> child = ProcessHandle.of(childPid);
+        assertTrue(child.isEmpty() || !child.get().isAlive(), "子进程仍在运行: " + childPid);
+    }
+
+    @Test
+    void failureReasonDoesNotExposeCommandOutput() {
+        assumeFalse(System.getProperty("os.name").toLowerCase().contains("windows"));
+        VueProjectBuilder builder = new VueProjectBuilder();
+        ReflectionTestUtils.setField(builder, "outputBufferLines", 20);
+        // 构建输出中带有服务器路径和代码块标记
+        List<String> command = List.of("sh", "-c", "echo 'error in " + tempDir + "/src/App.vue'; echo '```'; exit 2");
+        Object result = ReflectionTestUtils.invokeMethod(builder, "executeCommand",
+                tempDir.toFile(), command, Map.of(), 10);
+        assertNotNull(result);
+        assertFalse((Boolean) ReflectionTestUtils.invokeMethod(result, "success"));
+        assertEquals("退出码 2", ReflectionTestUtils.invokeMethod(result, "failureReason"));
+    }
+}
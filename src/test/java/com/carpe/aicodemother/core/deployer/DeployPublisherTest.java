@@ -0,0 +1,95 @@
+package com.carpe.aicodemother.core.deployer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeployPublisherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DeployPublisher newPublisher(Path deployRoot) {
+        DeployPublisher publisher = new DeployPublisher();
+        ReflectionTestUtils.setField(publisher, "deployRoot", deployRoot);
+        ReflectionTestUtils.setField(publisher, "releaseRetention", 3);
+        return publisher;
+    }
+
+    @Test
+    void publishLinksFilesAndSwapsAtomically() throws Exception {
+        Path source = tempDir.resolve("source");
+        Files.createDirectories(source.resolve("assets"));
+        Files.writeString(source.resolve("index.html"), "v1");
+        Files.writeString(source.resolve("assets/app.js"), "js");
+        Files.writeString(source.resolve("pending.html.writing"), "partial");
+        Path deployRoot = tempDir.resolve("deploy");
+        DeployPublisher publisher = newPublisher(deployRoot);
+
+        assertEquals(1, publisher.publish(source, "abc123"));
+        Path link = deployRoot.resolve("abc123");
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals("v1", Files.readString(link.resolve("index.html")));
+        assertEquals("js", Files.readString(link.resolve("assets/app.js")));
+        assertFalse(Files.exists(link.resolve("pending.html.writing")));
+        // 硬链接：与源文件是同一个文件
+        assertTrue(Files.isSameFile(source.resolve("index.html"), link.resolve("index.html")));
+        Path firstRelease = link.toRealPath();
+
+        // 源文件以重命名方式更新后重新发布
+        Path replacement = source.resolve("index.html.tmp");
+        Files.writeString(replacement, "v2");
+        Files.move(replacement, source.resolve("index.html"), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        assertEquals(2, publisher.publish(source, "abc123"));
+        assertEquals("v2", Files.readString(link.resolve("index.html")));
+        assertNotEquals(firstRelease, link.toRealPath());
+        // 旧版本仍保留，内容不受源文件更新影响
+        assertEquals("v1", Files.readString(firstRelease.resolve("index.html")));
+    }
+
+    @Test
+    void retentionAndRollback() throws Exception {
+        Path source = tempDir.resolve("source");
+        Files.createDirectories(source);
+        Path deployRoot = tempDir.resolve("deploy");
+        DeployPublisher publisher = newPublisher(deployRoot);
+        for (int i = 1; i <= 5; i++) {
+            Files.writeString(source.resolve("index.html.tmp"), "v" + i);
+            Files.move(source.resolve("index.html.tmp"), source.resolve("index.html"),
+                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            publisher.publish(source, "key");
+        }
+        assertEquals(java.util.List.of(3, 4, 5), publisher.listReleases("key"));
+        assertEquals(5, publisher.getCurrentRelease("key"));
+
+        assertEquals(4, publisher.rollback("key"));
+        assertEquals("v4", Files.readString(deployRoot.resolve("key/index.html")));
+        assertEquals(3, publisher.rollback("key"));
+        assertNull(publisher.rollback("key"));
+        assertEquals("v3", Files.readString(deployRoot.resolve("key/index.html")));
+
+        // 回滚后再次发布，编号继续递增，当前版本不会被清理
+        assertEquals(6, publisher.publish(source, "key"));
+        assertEquals(6, publisher.getCurrentRelease("key"));
+        assertEquals(3, publisher.listReleases("key").size());
+    }
+
+    @Test
+    void publishReplacesLegacyCopiedDirectory() throws Exception {
+        Path source = tempDir.resolve("source");
+        Files.createDirectories(source);
+        Files.writeString(source.resolve("index.html"), "new");
+        Path deployRoot = tempDir.resolve("deploy");
+        Files.createDirectories(deployRoot.resolve("key"));
+        Files.writeString(deployRoot.resolve("key/index.html"), "old");
+
+        newPublisher(deployRoot).publish(source, "key");
+        assertTrue(Files.isSymbolicLink(deployRoot.resolve("key")));
+        assertEquals("new", Files.readString(deployRoot.resolve("key/index.html")));
+    }
+}
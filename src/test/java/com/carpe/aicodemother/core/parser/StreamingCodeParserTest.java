@@ -0,0 +1,112 @@
+package com.carpe.aicodemother.core.parser;
+
+import com.carpe.aicodemother.ai.model.MultiFileCodeResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCodeParserTest {
+
+    private static final String MULTI_FILE_CONTENT = """
+            创建一个完整的网页：
+            ```html
+            <!DOCTYPE html>
+            <html>
+            <body>
+                <h1>欢迎使用</h1>
+                <script src="script.js"></script>
+            </body>
+            </html>
+            ```
+            ```css
+            h1 { color: blue; }
+            ```
+            ```javascript
+            const name = `world`;
+            console.log(`hello ${name}`);
+            ```
+            文件创建完成！
+            """;
+
+    @Test
+    void parseCodeMatchesRegexParser() {
+        MultiFileCodeResult expected = new MultiFileCodeParser().parseCode(MULTI_FILE_CONTENT);
+        MultiFileCodeResult result = new StreamingCodeParser().parseCode(MULTI_FILE_CONTENT);
+        assertEquals(expected.getHtmlCode(), result.getHtmlCode());
+        assertEquals(expected.getCssCode(), result.getCssCode());
+        assertEquals(expected.getJsCode(), result.getJsCode());
+    }
+
+    @Test
+    void appendWithArbitraryChunkBoundaries() {
+        MultiFileCodeResult expected = new MultiFileCodeParser().parseCode(MULTI_FILE_CONTENT);
+        for (int chunkSize = 1; chunkSize <= 7; chunkSize++) {
+            Map<String, String> blocks = new LinkedHashMap<>();
+            StreamingCodeParser parser = new StreamingCodeParser(blocks::put);
+            for (int i = 0; i < MULTI_FILE_CONTENT.length(); i += chunkSize) {
+                parser.append(MULTI_FILE_CONTENT.substring(i, Math.min(i + chunkSize, MULTI_FILE_CONTENT.length())));
+            }
+            // 代码块在流结束之前就已经全部回调
+            assertEquals(3, blocks.size());
+            parser.finish();
+            assertEquals(expected.getHtmlCode(), blocks.get(StreamingCodeParser.LANGUAGE_HTML));
+            assertEquals(expected.getCssCode(), blocks.get(StreamingCodeParser.LANGUAGE_CSS));
+            assertEquals(expected.getJsCode(), blocks.get(StreamingCodeParser.LANGUAGE_JS));
+        }
+    }
+
+    @Test
+    void fallbackToWholeContentWithoutHtmlBlock() {
+        String content = "<html><body>没有代码块</body></html>";
+        MultiFileCodeResult result = new StreamingCodeParser().parseCode(content);
+        assertEquals(new HtmlCodeParser().parseCode(content).getHtmlCode(), result.getHtmlCode());
+    }
+
+    @Test
+    void unclosedBlockIsNotExtracted() {
+        String content = """
+                ```html
+                <html></html>
+                ```
+                ```css
+                h1 { color: red; }
+                """;
+        MultiFileCodeResult result = new StreamingCodeParser().parseCode(content);
+        assertNotNull(result.getHtmlCode());
+        assertNull(result.getCssCode());
+    }
+
+    @Test
+    void multiFileModeHasNoHtmlFallback() {
+        String content = "<html><body>没有代码块</body></html>";
+        MultiFileCodeResult result = new StreamingCodeParser((language, text) -> {
+        }, (language, code) -> {
+        }, false).parseCode(content);
+        assertEquals(new MultiFileCodeParser().parseCode(content).getHtmlCode(), result.getHtmlCode());
+        assertNull(result.getHtmlCode());
+    }
+
+    @Test
+    void strayFenceDoesNotSwallowNextBlock() {
+        String content = """
+                说明中的反引号 ``` 后面跟着一段很长的说明文字，超过了语言标记的长度限制
+                ```python
+                print("ignored")
+                ```
+                ```html
+                <html><body>ok</body></html>
+                ```
+                行内 ``````css
+                h1 { color: red; }
+                ```
+                """;
+        MultiFileCodeResult expected = new MultiFileCodeParser().parseCode(content);
+        MultiFileCodeResult result = new StreamingCodeParser().parseCode(content);
+        assertEquals("<html><body>ok</body></html>", result.getHtmlCode());
+        assertEquals(expected.getHtmlCode(), result.getHtmlCode());
+        assertEquals(expected.getCssCode(), result.getCssCode());
+    }
+}
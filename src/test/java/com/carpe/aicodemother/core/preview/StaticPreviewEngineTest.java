@@ -0,0 +1,197 @@
+package com.carpe.aicodemother.core.preview;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticPreviewEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StaticPreviewEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = new StaticPreviewEngine();
+        ReflectionTestUtils.setField(engine, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(engine, "previewRoot", tempDir);
+        ReflectionTestUtils.setField(engine, "metadataTtlMs", 60_000L);
+        ReflectionTestUtils.setField(engine, "hotCacheMaxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(engine, "hotFileMaxBytes", 1024L);
+        engine.init();
+        Path app = Files.createDirectories(tempDir.resolve("html_1"));
+        Files.writeString(app.resolve("index.html"), "<html>hello</html>");
+        Files.writeString(app.resolve("style.css"), "body{}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.destroy();
+    }
+
+    private MockHttpServletResponse get(String path, String... headers) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/static/html_1" + path);
+        for (int i = 0; i < headers.length; i += 2) {
+            request.addHeader(headers[i], headers[i + 1]);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        engine.serve("html_1", path, request, response);
+        return response;
+    }
+
+    @Test
+    void servesIndexWithValidatorsAndMimeType() throws Exception {
+        MockHttpServletResponse response = get("/");
+        assertEquals(200, response.getStatus());
+        assertEquals("<html>hello</html>", response.getContentAsString());
+        assertTrue(response.getContentType().startsWith("text/html"));
+        assertNotNull(response.getHeader("ETag"));
+        assertNotNull(response.getHeader("Last-Modified"));
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+        assertTrue(get("/style.css").getContentType().startsWith("text/css"));
+    }
+
+    @Test
+    void returnsNotModifiedForMatchingEtag() throws Exception {
+        String etag = get("/index.html").getHeader("ETag");
+        MockHttpServletResponse response = get("/index.html", "If-None-Match", etag);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void servesPrecompressedVariantWhenAccepted() throws Exception {
+        Path gz = tempDir.resolve("html_1/style.css.gz");
+        Files.write(gz, new byte[]{1, 2, 3});
+        engine.invalidate("html_1");
+        MockHttpServletResponse response = get("/style.css", "Accept-Encoding", "gzip, deflate");
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertArrayEquals(new byte[]{1, 2, 3}, response.getContentAsByteArray());
+        // 不接受 gzip 时返回原文件，ETag 与压缩版本不同
+        MockHttpServletResponse identity = get("/style.css", "Accept-Encoding", "gzip;q=0");
+        assertNull(identity.getHeader("Content-Encoding"));
+        assertEquals("body{}", identity.getContentAsString());
+        assertNotEquals(response.getHeader("ETag"), identity.getHeader("ETag"));
+    }
+
+    @Test
+    void servesSingleRange() throws Exception {
+        MockHttpServletResponse response = get("/index.html", "Range", "bytes=1-4");
+        assertEquals(206, response.getStatus());
+        assertEquals("html", response.getContentAsString());
+        assertEquals("bytes 1-4/18", response.getHeader("Content-Range"));
+        assertEquals(416, get("/index.html", "Range", "bytes=100-").getStatus());
+    }
+
+    @Test
+    void rejectsMissingFilesAndTraversal() throws Exception {
+        assertEquals(404, get("/missing.html").getStatus());
+        Files.writeString(tempDir.resolve("secret.txt"), "secret");
+        assertEquals(404, get("/../secret.txt").getStatus());
+    }
+
+    @Test
+    void servesSmallFilesFromMemoryAndInvalidatesOnSave() throws Exception {
+        assertEquals("<html>hello</html>", get("/index.html").getContentAsString());
+        assertEquals("<html>hello</html>", get("/index.html").getContentAsString());
+        assertEquals(1.0, hotCacheCount("hit"));
+        assertEquals(1.0, hotCacheCount("miss"));
+        // 保存文件后通知失效，下一次请求读取新内容
+        Path index = tempDir.resolve("html_1/index.html");
+        Files.writeString(index, "<html>changed</html>");
+        PreviewFileChangeNotifier.notifyChanged(index);
+        assertEquals("<html>changed</html>", get("/index.html").getContentAsString());
+        assertEquals(2.0, hotCacheCount("miss"));
+    }
+
+    private double hotCacheCount(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "static_preview_hot_file_cache")
+                .tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    void reloadsMetadataWhenFileChangedWithoutNotification() throws Exception {
+        // 大文件，走磁盘发送路径
+        Path large = tempDir.resolve("html_1/data.bin");
+        Files.write(large, new byte[4096]);
+        assertEquals(4096, get("/data.bin").getContentAsByteArray().length);
+        // 绕过保存通知直接缩小文件，元数据缓存仍是旧的大小
+        Files.write(large, new byte[100]);
+        MockHttpServletResponse response = get("/data.bin");
+        assertEquals(200, response.getStatus());
+        assertEquals(100, response.getContentLength());
+        assertEquals(100, response.getContentAsByteArray().length);
+        // 文件被删除时返回 404
+        Files.delete(large);
+        assertEquals(404, get("/data.bin").getStatus());
+    }
+
+    @Test
+    void sendsValidatedFileEvenIfReplacedBeforeSending() throws Exception {
+        Path large = tempDir.resolve("html_1/bundle.js");
+        byte[] original = new byte[64 * 1024];
+        Arrays.fill(original, (byte) 'a');
+        Files.write(large, original);
+        Path replacement = tempDir.resolve("html_1/bundle.js.new");
+        Files.write(replacement, new byte[100]);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/static/html_1/bundle.js");
+        request.setAttribute("org.apache.tomcat.sendfile.support", true);
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public void setContentLengthLong(long length) {
+                super.setContentLengthLong(length);
+                // 大小校验之后、发送之前文件被原子替换为更小的文件
+                try {
+                    Files.move(replacement, large, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        engine.serve("html_1", "/bundle.js", request, response);
+        assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(original.length, response.getContentLength());
+        assertArrayEquals(original, response.getContentAsByteArray());
+    }
+
+    @Test
+    void reusesEtagWhenSizeAndModifiedTimeUnchanged() throws Exception {
+        engine.destroy();
+        engine = new StaticPreviewEngine();
+        ReflectionTestUtils.setField(engine, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "previewRoot", tempDir);
+        ReflectionTestUtils.setField(engine, "metadataTtlMs", 1L);
+        engine.init();
+        Path style = tempDir.resolve("html_1/style.css");
+        FileTime modified = Files.getLastModifiedTime(style);
+        String etag = get("/style.css").getHeader("ETag");
+        // 内容变了但大小和修改时间不变：刷新元数据时不重新计算摘要，沿用原 ETag
+        Files.writeString(style, "body[]");
+        Files.setLastModifiedTime(style, modified);
+        Thread.sleep(10);
+        assertEquals(etag, get("/style.css").getHeader("ETag"));
+        // 修改时间变化后重新计算
+        Files.setLastModifiedTime(style, FileTime.fromMillis(modified.toMillis() + 10_000));
+        Thread.sleep(10);
+        assertNotEquals(etag, get("/style.css").getHeader("ETag"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.carpe.aicodemother.core.saver;
+
+import com.carpe.aicodemother.core.parser.StreamingCodeParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCodeFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appendThenCommitPublishesTrimmedContent() throws Exception {
+        StreamingCodeFileWriter writer = new StreamingCodeFileWriter(tempDir.toString(), language -> language + ".txt");
+        String code = "\n  <html>\n  <body></body>\n</html>\n\n";
+        StreamingCodeParser parser = new StreamingCodeParser(writer::append, writer::commit);
+        String content = "```html" + code + "```";
+        for (int i = 0; i < content.length(); i += 3) {
+            parser.append(content.substring(i, Math.min(i + 3, content.length())));
+            // 提交之前正式文件不可见
+            if (i + 3 < content.length()) {
+                assertFalse(Files.exists(tempDir.resolve("html.txt")));
+            }
+        }
+        parser.finish();
+        writer.close();
+        assertEquals(code.trim(), Files.readString(tempDir.resolve("html.txt")));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void closeDiscardsUncommittedFiles() throws Exception {
+        StreamingCodeFileWriter writer = new StreamingCodeFileWriter(tempDir.toString(), language -> language + ".txt");
+        writer.append("css", "h1 { color: red; }");
+        writer.close();
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void concurrentWritersOfSameFileDoNotShareTempFile() throws Exception {
+        // 同一应用的重新生成与未结束的流同时写同一个文件
+        StreamingCodeFileWriter first = new StreamingCodeFileWriter(tempDir.toString(), language -> "index.html");
+        StreamingCodeFileWriter second = new StreamingCodeFileWriter(tempDir.toString(), language -> "index.html");
+        first.append("html", "<html>first");
+        second.append("html", "<html>second");
+        first.append("html", "</html>");
+        StreamingCodeFileWriter.writeAtomically(tempDir.resolve("index.html"), "<html>direct</html>");
+        assertEquals("<html>direct</html>", Files.readString(tempDir.resolve("index.html")));
+        first.commit("html", null);
+        assertEquals("<html>first</html>", Files.readString(tempDir.resolve("index.html")));
+        second.append("html", "</html>");
+        second.commit("html", null);
+        assertEquals("<html>second</html>", Files.readString(tempDir.resolve("index.html")));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
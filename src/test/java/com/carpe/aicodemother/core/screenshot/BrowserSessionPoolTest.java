@@ -0,0 +1,120 @@
+package com.carpe.aicodemother.core.screenshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrowserSessionPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final AtomicInteger quit = new AtomicInteger();
+
+    /**
+     * 编号不超过该值的浏览器视为已崩溃
+     */
+    private final AtomicInteger crashedUpTo = new AtomicInteger();
+
+    private final BrowserSessionPool pool = new BrowserSessionPool();
+
+    BrowserSessionPoolTest() {
+        ReflectionTestUtils.setField(pool, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(pool, "poolSize", 2);
+        ReflectionTestUtils.setField(pool, "maxCapturesPerSession", 2);
+        ReflectionTestUtils.setField(pool, "borrowTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(pool, "driverFactory", (Supplier<WebDriver>) this::fakeDriver);
+        pool.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void reusesSessionAndRecyclesAfterMaxCaptures() throws Exception {
+        BrowserSession first = pool.borrow();
+        pool.giveBack(first, false);
+        assertSame(first, pool.borrow());
+        // 第二次截图后达到上限，浏览器被回收
+        pool.giveBack(first, false);
+        assertEquals(1, quit.get());
+        BrowserSession second = pool.borrow();
+        assertNotSame(first, second);
+        assertEquals(2, created.get());
+        pool.giveBack(second, false);
+        assertEquals(1.0, meterRegistry.get("screenshot_browser_recycled_total")
+                .tag("reason", "max_captures").counter().count());
+    }
+
+    @Test
+    void replacesUnhealthyAndBrokenSessions() throws Exception {
+        BrowserSession session = pool.borrow();
+        pool.giveBack(session, true);
+        assertEquals(1, quit.get());
+        session = pool.borrow();
+        pool.giveBack(session, false);
+        // 空闲期间浏览器崩溃，借出前的健康检查发现后重建
+        crashedUpTo.set(created.get());
+        BrowserSession replacement = pool.borrow();
+        assertNotSame(session, replacement);
+        assertEquals(3, created.get());
+        pool.giveBack(replacement, false);
+    }
+
+    @Test
+    void limitsConcurrentSessions() throws Exception {
+        BrowserSession first = pool.borrow();
+        BrowserSession second = pool.borrow();
+        CompletableFuture<BrowserSession> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.borrow();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertFalse(third.isDone());
+        pool.giveBack(first, false);
+        assertSame(first, third.get(5, TimeUnit.SECONDS));
+        pool.giveBack(second, false);
+        pool.giveBack(first, false);
+        assertEquals(2, created.get());
+    }
+
+    /**
+     * 只支持健康检查和退出的假浏览器
+     */
+    private WebDriver fakeDriver() {
+        int generation = created.incrementAndGet();
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebDriver.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getWindowHandle" -> {
+                        if (generation <= crashedUpTo.get()) {
+                            throw new WebDriverException("browser crashed");
+                        }
+                        yield "window-" + generation;
+                    }
+                    case "quit" -> {
+                        quit.incrementAndGet();
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
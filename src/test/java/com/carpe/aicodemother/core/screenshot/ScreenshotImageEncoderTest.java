@@ -0,0 +1,50 @@
+package com.carpe.aicodemother.core.screenshot;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScreenshotImageEncoderTest {
+
+    private final ScreenshotImageEncoder encoder = new ScreenshotImageEncoder();
+
+    @Test
+    void encodesDownscaledJpegAndReusesWriter() throws Exception {
+        byte[] png = createPng(1600, 900);
+        for (int i = 0; i < 3; i++) {
+            byte[] jpeg = encoder.encode(png);
+            // JPEG 文件头
+            assertEquals((byte) 0xFF, jpeg[0]);
+            assertEquals((byte) 0xD8, jpeg[1]);
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpeg));
+            assertEquals(800, decoded.getWidth());
+            assertEquals(450, decoded.getHeight());
+            assertTrue(jpeg.length < png.length);
+        }
+    }
+
+    @Test
+    void keepsSmallImagesAtOriginalSize() throws Exception {
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoder.encode(createPng(400, 300))));
+        assertEquals(400, decoded.getWidth());
+        assertEquals(300, decoded.getHeight());
+    }
+
+    private byte[] createPng(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
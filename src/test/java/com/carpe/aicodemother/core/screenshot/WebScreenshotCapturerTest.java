@@ -0,0 +1,27 @@
+package com.carpe.aicodemother.core.screenshot;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest
+class WebScreenshotCapturerTest {
+
+    @Resource
+    private WebScreenshotCapturer webScreenshotCapturer;
+
+    @Resource
+    private ScreenshotImageEncoder screenshotImageEncoder;
+
+    @Test
+    void captureAndEncode() {
+        String testUrl = "https://yy.haust.edu.cn/";
+        byte[] screenshotBytes = webScreenshotCapturer.capture(testUrl);
+        Assertions.assertNotNull(screenshotBytes);
+        byte[] imageBytes = screenshotImageEncoder.encode(screenshotBytes);
+        Assertions.assertTrue(imageBytes.length > 0);
+    }
+}
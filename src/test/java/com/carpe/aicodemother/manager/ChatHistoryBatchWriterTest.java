@@ -0,0 +1,86 @@
+package com.carpe.aicodemother.manager;
+
+import com.carpe.aicodemother.mapper.ChatHistoryMapper;
+import com.carpe.aicodemother.model.entity.ChatHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryBatchWriterTest {
+
+    /**
+     * 已写入的消息
+     */
+    private final List<ChatHistory> written = new CopyOnWriteArrayList<>();
+
+    private final ChatHistoryBatchWriter writer = new ChatHistoryBatchWriter();
+
+    ChatHistoryBatchWriterTest() {
+        ReflectionTestUtils.setField(writer, "chatHistoryMapper", fakeMapper());
+        ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 10);
+        // 等待间隔远大于测试超时，flush 不应被后台线程的等待阻塞
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60_000L);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void flushDoesNotWaitForIdleWriterThread() throws Exception {
+        // 让后台线程进入空闲等待
+        Thread.sleep(100);
+        assertFlushReturnsQuickly();
+        for (int i = 0; i < 25; i++) {
+            writer.submit(chatHistory(i));
+        }
+        assertFlushReturnsQuickly();
+        assertEquals(25, written.size());
+        // 按提交顺序写入
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals((long) i, written.get(i).getAppId());
+        }
+    }
+
+    private void assertFlushReturnsQuickly() {
+        long start = System.nanoTime();
+        writer.flush();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs < 1000, "flush 耗时 " + elapsedMs + "ms");
+    }
+
+    private ChatHistory chatHistory(long appId) {
+        ChatHistory chatHistory = new ChatHistory();
+        chatHistory.setAppId(appId);
+        chatHistory.setMessage("message-" + appId);
+        return chatHistory;
+    }
+
+    /**
+     * 只支持批量写入的假 Mapper
+     */
+    @SuppressWarnings("unchecked")
+    private ChatHistoryMapper fakeMapper() {
+        return (ChatHistoryMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ChatHistoryMapper.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "insertBatch" -> {
+                        written.addAll((List<ChatHistory>) args[0]);
+                        yield ((List<ChatHistory>) args[0]).size();
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,255 @@
+package com.carpe.aicodemother.manager;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.carpe.aicodemother.manager.storage.LocalFileObjectStorageClient;
+import com.qcloud.cos.exception.ClientExceptionConstants;
+import com.qcloud.cos.exception.CosClientException;
+import com.qcloud.cos.exception.CosServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CosManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private FlakyStorageClient storageClient;
+
+    private CosManager cosManager;
+
+    @BeforeEach
+    void setUp() {
+        storageClient = new FlakyStorageClient(tempDir.resolve("bucket"));
+        cosManager = new CosManager();
+        ReflectionTestUtils.setField(cosManager, "objectStorageClient", storageClient);
+        ReflectionTestUtils.setField(cosManager, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cosManager, "maxConcurrentUploads", 2);
+        ReflectionTestUtils.setField(cosManager, "maxAttempts", 3);
+        ReflectionTestUtils.setField(cosManager, "retryBackoffMs", 1L);
+        cosManager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cosManager.shutdown();
+    }
+
+    @Test
+    void uploadsFileAndBytesAsynchronously() throws Exception {
+        File file = Files.writeString(tempDir.resolve("a.txt"), "hello").toFile();
+        String fileUrl = cosManager.uploadFileAsync("/docs/a.txt", file).get(5, TimeUnit.SECONDS);
+        String bytesUrl = cosManager.uploadBytesAsync("img/b.jpg", new byte[]{1, 2}, "image/jpeg").get(5, TimeUnit.SECONDS);
+        assertEquals("hello", Files.readString(storageClient.resolve("/docs/a.txt")));
+        assertArrayEquals(new byte[]{1, 2}, Files.readAllBytes(storageClient.resolve("img/b.jpg")));
+        assertEquals(storageClient.getObjectUrl("/docs/a.txt"), fileUrl);
+        assertEquals(storageClient.getObjectUrl("img/b.jpg"), bytesUrl);
+        assertEquals(7.0, meterRegistry.get("cos_upload_bytes").summary().totalAmount());
+    }
+
+    @Test
+    void retriesTransientFailuresWithBackoff() {
+        storageClient.failuresBeforeSuccess.set(2);
+        assertNotNull(cosManager.uploadBytes("retry.bin", new byte[]{1}, "application/octet-stream"));
+        assertEquals(3, storageClient.attempts.get());
+        assertEquals(2.0, meterRegistry.get("cos_upload_retries_total").counter().count());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        storageClient.forbidden = true;
+        assertNull(cosManager.uploadBytes("denied.bin", new byte[]{1}, "application/octet-stream"));
+        assertEquals(1, storageClient.attempts.get());
+        assertEquals(1, meterRegistry.get("cos_upload_duration_seconds").tag("result", "failure").timer().count());
+    }
+
+    @Test
+    void retriesOnlyNetworkAndTimeoutErrors() {
+        storageClient.failure = new CosClientException("read timed out", ClientExceptionConstants.SOCKET_TIMEOUT, null);
+        storageClient.failuresBeforeSuccess.set(1);
+        assertNotNull(cosManager.uploadBytes("timeout.bin", new byte[]{1}, "application/octet-stream"));
+        assertEquals(2, storageClient.attempts.get());
+
+        storageClient.attempts.set(0);
+        storageClient.failure = new IllegalArgumentException("bad key");
+        storageClient.failuresBeforeSuccess.set(1);
+        assertNull(cosManager.uploadBytes("invalid.bin", new byte[]{1}, "application/octet-stream"));
+        assertEquals(1, storageClient.attempts.get());
+        assertEquals(1.0, meterRegistry.get("cos_upload_retries_total").counter().count());
+    }
+
+    @Test
+    void doesNotRetryMissingFile() {
+        CompletableFuture<String> future = cosManager.uploadFileAsync("missing.txt", tempDir.resolve("missing.txt").toFile());
+        assertThrows(CompletionException.class, future::join);
+        assertEquals(0.0, meterRegistry.get("cos_upload_retries_total").counter().count());
+    }
+
+    @Test
+    void limitsConcurrentUploads() throws Exception {
+        storageClient.delayMs = 100;
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(cosManager.uploadBytesAsync("c/" + i, new byte[]{1}, "application/octet-stream"));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(2, storageClient.maxConcurrent.get());
+    }
+
+    @Test
+    void contentAddressedUploadSkipsKnownContent() {
+        byte[] bytes = "same diagram".getBytes();
+        String url = cosManager.uploadContentAddressed("/mermaid/", bytes, ".svg", "image/svg+xml");
+        assertEquals(storageClient.getObjectUrl("/mermaid/" + DigestUtil.sha256Hex(bytes) + ".svg"), url);
+        // 相同内容直接命中索引，不再上传
+        assertEquals(url, cosManager.uploadContentAddressed("/mermaid", bytes, ".svg", "image/svg+xml"));
+        assertEquals(1, storageClient.attempts.get());
+        assertEquals(1.0, contentCount("local_hit"));
+        assertNotEquals(url, cosManager.uploadContentAddressed("/mermaid", "other".getBytes(), ".svg", "image/svg+xml"));
+        assertEquals(2, storageClient.attempts.get());
+    }
+
+    @Test
+    void concurrentContentAddressedUploadsShareOneTransfer() throws Exception {
+        storageClient.delayMs = 200;
+        byte[] bytes = {7, 7, 7};
+        CompletableFuture<String> first = cosManager.uploadContentAddressedAsync("screenshots", bytes, ".jpg", "image/jpeg");
+        CompletableFuture<String> second = cosManager.uploadContentAddressedAsync("screenshots", bytes, ".jpg", "image/jpeg");
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, storageClient.attempts.get());
+        assertEquals(1.0, contentCount("coalesced"));
+    }
+
+    @Test
+    void contentIndexIsScopedToStorageNamespace() throws Exception {
+        Map<String, String> redis = new ConcurrentHashMap<>();
+        ReflectionTestUtils.setField(cosManager, "stringRedisTemplate", fakeRedis(redis));
+        byte[] bytes = "shared diagram".getBytes();
+        cosManager.uploadContentAddressedAsync("/mermaid", bytes, ".svg", "image/svg+xml").get(5, TimeUnit.SECONDS);
+        assertEquals(1, redis.size());
+        assertTrue(redis.keySet().iterator().next().startsWith("cos:content:" + storageClient.getNamespace() + ":"));
+
+        // 同一 Redis 下另一个存储桶的实例不能复用这个索引
+        FlakyStorageClient otherBucket = new FlakyStorageClient(tempDir.resolve("other-bucket"));
+        CosManager otherManager = new CosManager();
+        ReflectionTestUtils.setField(otherManager, "objectStorageClient", otherBucket);
+        ReflectionTestUtils.setField(otherManager, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(otherManager, "stringRedisTemplate", fakeRedis(redis));
+        otherManager.init();
+        try {
+            String url = otherManager.uploadContentAddressedAsync("/mermaid", bytes, ".svg", "image/svg+xml")
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(otherBucket.getObjectUrl("/mermaid/" + DigestUtil.sha256Hex(bytes) + ".svg"), url);
+            assertEquals(1, otherBucket.attempts.get());
+            assertEquals(2, redis.size());
+        } finally {
+            otherManager.shutdown();
+        }
+    }
+
+    @Test
+    void rejectedContentAddressedUploadDoesNotStayInFlight() {
+        cosManager.shutdown();
+        byte[] bytes = {1, 2, 3};
+        CompletableFuture<String> first = cosManager.uploadContentAddressedAsync("screenshots", bytes, ".jpg", "image/jpeg");
+        assertTrue(first.isCompletedExceptionally());
+        // 相同内容的后续上传不会拿到一个永远不会结束的 future
+        CompletableFuture<String> second = cosManager.uploadContentAddressedAsync("screenshots", bytes, ".jpg", "image/jpeg");
+        assertNotSame(first, second);
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    /**
+     * 只支持 get / set 的 Redis，数据保存在 map 中
+     */
+    @SuppressWarnings("unchecked")
+    private static StringRedisTemplate fakeRedis(Map<String, String> data) {
+        ValueOperations<String, String> operations = (ValueOperations<String, String>) Proxy.newProxyInstance(
+                CosManagerTest.class.getClassLoader(), new Class<?>[]{ValueOperations.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "get" -> data.get((String) args[0]);
+                    case "set" -> {
+                        data.put((String) args[0], (String) args[1]);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return new StringRedisTemplate() {
+            @Override
+            public ValueOperations<String, String> opsForValue() {
+                return operations;
+            }
+        };
+    }
+
+    private double contentCount(String result) {
+        return meterRegistry.get("cos_content_upload_total").tag("result", result).counter().count();
+    }
+
+    /**
+     * 可以模拟失败、延迟并记录并发数的本地存储
+     */
+    private static class FlakyStorageClient extends LocalFileObjectStorageClient {
+
+        private final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private final AtomicInteger running = new AtomicInteger();
+
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        private volatile boolean forbidden;
+
+        private volatile long delayMs;
+
+        private volatile Exception failure = new IOException("connection reset");
+
+        FlakyStorageClient(Path rootDir) {
+            super(rootDir);
+        }
+
+        @Override
+        public void putBytes(String key, byte[] bytes, String contentType) throws Exception {
+            attempts.incrementAndGet();
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                if (forbidden) {
+                    CosServiceException exception = new CosServiceException("AccessDenied");
+                    exception.setStatusCode(403);
+                    throw exception;
+                }
+                if (failuresBeforeSuccess.getAndDecrement() > 0) {
+                    throw failure;
+                }
+                Thread.sleep(delayMs);
+                super.putBytes(key, bytes, contentType);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.carpe.aicodemother.manager.storage;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 本地文件系统实现的对象存储客户端（测试用），对象保存在 rootDir 下，URL 为 file:// 地址
+ */
+public class LocalFileObjectStorageClient implements ObjectStorageClient {
+
+    private final Path rootDir;
+
+    public LocalFileObjectStorageClient(Path rootDir) {
+        this.rootDir = rootDir;
+    }
+
+    @Override
+    public void putFile(String key, File file) throws Exception {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.copy(file.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void putBytes(String key, byte[] bytes, String contentType) throws Exception {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.write(target, bytes);
+    }
+
+    @Override
+    public String getObjectUrl(String key) {
+        return resolve(key).toUri().toString();
+    }
+
+    @Override
+    public String getNamespace() {
+        return rootDir.toString();
+    }
+
+    public Path resolve(String key) {
+        return rootDir.resolve(key.startsWith("/") ? key.substring(1) : key);
+    }
+}
@@ -0,0 +1,223 @@
+package com.carpe.aicodemother.service.impl;
+
+import com.carpe.aicodemother.exception.BusinessException;
+import com.carpe.aicodemother.exception.ErrorCode;
+import com.carpe.aicodemother.manager.ChatHistoryBatchWriter;
+import com.carpe.aicodemother.mapper.ChatHistoryMapper;
+import com.carpe.aicodemother.model.entity.App;
+import com.carpe.aicodemother.model.entity.ChatHistory;
+import com.carpe.aicodemother.model.entity.User;
+import com.carpe.aicodemother.service.AppService;
+import com.mybatisflex.core.paginate.Page;
+import com.mybatisflex.core.query.QueryWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryServiceImplTest {
+
+    private static final long APP_ID = 1L;
+
+    private static final long CREATOR_ID = 10L;
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 10, 0, 0);
+
+    private final AtomicLong generatedId = new AtomicLong(1000);
+
+    private Connection connection;
+
+    private ChatHistoryBatchWriter writer;
+
+    private ChatHistoryServiceImpl service;
+
+    private final User creator = user(CREATOR_ID, "user");
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // 在内存数据库中执行 QueryWrapper 生成的 SQL，验证游标条件的真实语义
+        connection = DriverManager.getConnection("jdbc:h2:mem:chat_history_" + System.nanoTime() + ";MODE=MySQL");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE `chat_history` (`id` BIGINT PRIMARY KEY, `message` VARCHAR(255), "
+                    + "`messageType` VARCHAR(32), `appId` BIGINT, `userId` BIGINT, `createTime` TIMESTAMP)");
+        }
+        ChatHistoryMapper mapper = h2Mapper();
+        writer = new ChatHistoryBatchWriter();
+        ReflectionTestUtils.setField(writer, "chatHistoryMapper", mapper);
+        ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 10);
+        // 后台线程不会主动写入，只有 flush 才会落库
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60_000L);
+        writer.start();
+
+        service = new ChatHistoryServiceImpl();
+        ReflectionTestUtils.setField(service, "mapper", mapper);
+        ReflectionTestUtils.setField(service, "appService", fakeAppService());
+        ReflectionTestUtils.setField(service, "chatHistoryBatchWriter", writer);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        writer.shutdown();
+        connection.close();
+    }
+
+    @Test
+    void cursorPagesThroughRowsSharingCreateTimeWithoutDuplicatesOrGaps() {
+        // 同一秒内写入多条消息（批量写入时很常见），以及另一个应用的干扰数据
+        insert(1, APP_ID, T0);
+        insert(2, APP_ID, T0);
+        insert(3, APP_ID, T0.plusSeconds(1));
+        insert(4, APP_ID, T0.plusSeconds(1));
+        insert(5, APP_ID, T0.plusSeconds(1));
+        insert(6, APP_ID, T0.plusSeconds(2));
+        insert(7, APP_ID, T0.plusSeconds(2));
+        insert(8, 2L, T0.plusSeconds(1));
+
+        List<Long> ids = new ArrayList<>();
+        LocalDateTime lastCreateTime = null;
+        Long lastId = null;
+        for (int page = 0; page < 10; page++) {
+            List<ChatHistory> records = service.listAppChatHistoryByCursor(APP_ID, 2, lastCreateTime, lastId, creator)
+                    .getRecords();
+            if (records.isEmpty()) {
+                break;
+            }
+            assertTrue(records.size() <= 2);
+            records.forEach(record -> ids.add(record.getId()));
+            ChatHistory last = records.getLast();
+            lastCreateTime = last.getCreateTime();
+            lastId = last.getId();
+        }
+        // 新的在前，同一时间按 id 降序；每条恰好出现一次
+        assertEquals(List.of(7L, 6L, 5L, 4L, 3L, 2L, 1L), ids);
+    }
+
+    @Test
+    void firstPageSeesMessagesStillQueuedInWriter() {
+        insert(1, APP_ID, T0);
+        service.addChatMessage(APP_ID, "刚发送的消息", "user", CREATOR_ID);
+
+        Page<ChatHistory> page = service.listAppChatHistoryByCursor(APP_ID, 10, null, null, creator);
+        assertEquals(2, page.getRecords().size());
+        assertEquals("刚发送的消息", page.getRecords().getFirst().getMessage());
+    }
+
+    @Test
+    void rejectsInvalidPageSizeAndUnauthorizedUser() {
+        BusinessException invalidSize = assertThrows(BusinessException.class,
+                () -> service.listAppChatHistoryByCursor(APP_ID, 51, null, null, creator));
+        assertEquals(ErrorCode.PARAMS_ERROR.getCode(), invalidSize.getCode());
+
+        BusinessException noAuth = assertThrows(BusinessException.class,
+                () -> service.listAppChatHistoryByCursor(APP_ID, 10, null, null, user(99L, "user")));
+        assertEquals(ErrorCode.NO_AUTH_ERROR.getCode(), noAuth.getCode());
+
+        // 管理员可以查看任意应用的对话历史
+        assertDoesNotThrow(() -> service.listAppChatHistoryByCursor(APP_ID, 10, null, null, user(99L, "admin")));
+    }
+
+    private void insert(long id, long appId, LocalDateTime createTime) {
+        ChatHistory chatHistory = new ChatHistory();
+        chatHistory.setId(id);
+        chatHistory.setAppId(appId);
+        chatHistory.setUserId(CREATOR_ID);
+        chatHistory.setMessage("message-" + id);
+        chatHistory.setMessageType("user");
+        chatHistory.setCreateTime(createTime);
+        insertRows(List.of(chatHistory));
+    }
+
+    private int insertRows(List<ChatHistory> rows) {
+        String sql = "INSERT INTO `chat_history` (`id`, `message`, `messageType`, `appId`, `userId`, `createTime`) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (ChatHistory row : rows) {
+                // 批量写入器提交的消息没有 id 和创建时间，生成的时间晚于已有数据
+                statement.setLong(1, row.getId() != null ? row.getId() : generatedId.incrementAndGet());
+                statement.setString(2, row.getMessage());
+                statement.setString(3, row.getMessageType());
+                statement.setLong(4, row.getAppId());
+                statement.setLong(5, row.getUserId());
+                statement.setTimestamp(6, Timestamp.valueOf(row.getCreateTime() != null ? row.getCreateTime() : T0.plusDays(1)));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            return rows.size();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<ChatHistory> select(QueryWrapper queryWrapper) {
+        String sql = queryWrapper.from("chat_history").toSQL();
+        List<ChatHistory> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                ChatHistory row = new ChatHistory();
+                row.setId(resultSet.getLong("id"));
+                row.setMessage(resultSet.getString("message"));
+                row.setAppId(resultSet.getLong("appId"));
+                row.setCreateTime(resultSet.getTimestamp("createTime").toLocalDateTime());
+                rows.add(row);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(sql, e);
+        }
+        return rows;
+    }
+
+    /**
+     * 只支持批量写入和列表查询的 Mapper，数据保存在 H2 中
+     */
+    @SuppressWarnings("unchecked")
+    private ChatHistoryMapper h2Mapper() {
+        return (ChatHistoryMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ChatHistoryMapper.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "insertBatch" -> insertRows((List<ChatHistory>) args[0]);
+                    case "selectListByQuery" -> select((QueryWrapper) args[0]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * 只有一个普通应用（非精选），创建者为 CREATOR_ID
+     */
+    private AppService fakeAppService() {
+        App app = new App();
+        app.setId(APP_ID);
+        app.setUserId(CREATOR_ID);
+        app.setPriority(0);
+        return (AppService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{AppService.class},
+                (proxy, method, args) -> {
+                    if ("getById".equals(method.getName())) {
+                        return APP_ID == ((Number) args[0]).longValue() ? app : null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static User user(long id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setUserRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,51 @@
+package com.carpe.aicodemother.utils;
+
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseEventUtilsTest {
+
+    @Test
+    void encodeFrameRoundTrip() {
+        String text = "<div class=\"a\">\\n</div>\n\t`模板 ${x}`\u0001 ";
+        String frame = SseEventUtils.encodeFrame(new StringBuilder(), List.of(text));
+        assertEquals(text, JSONUtil.parseObj(frame).getStr("d"));
+    }
+
+    @Test
+    void coalescedFramesKeepContent() {
+        List<String> tokens = List.of("<h", "tml>", "\"", "中文", "\n", "</html>");
+        List<String> frames = SseEventUtils.toDataEvents(Flux.fromIterable(tokens), Duration.ofMillis(50), 4)
+                .map(event -> JSONUtil.parseObj(event.data()).getStr("d"))
+                .collectList()
+                .block();
+        assertNotNull(frames);
+        assertTrue(frames.size() < tokens.size());
+        assertEquals(String.join("", tokens), frames.stream().collect(Collectors.joining()));
+    }
+
+    @Test
+    void slowSubscriberDoesNotOverflow() {
+        // 模型输出是推送式的（Flux.create 缓冲），下游只请求一帧，期间合并窗口多次到期
+        StepVerifier.withVirtualTime(() -> SseEventUtils.toDataEvents(
+                        Flux.interval(Duration.ofMillis(10)).onBackpressureBuffer().take(20).map(String::valueOf),
+                        Duration.ofMillis(15), 4)
+                        .map(ServerSentEvent::data), 0)
+                .thenRequest(1)
+                .thenAwait(Duration.ofMillis(100))
+                .expectNextCount(1)
+                .thenAwait(Duration.ofSeconds(1))
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(frame -> true)
+                .verifyComplete();
+    }
+}
@@ -1,18 +0,0 @@
-package com.carpe.aicodemother.utils;
-
-import lombok.extern.slf4j.Slf4j;
-import org.junit.jupiter.api.Assertions;
-import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
-
-@Slf4j
-@SpringBootTest
-class WebScreenshotUtilsTest {
-
-    @Test
-    void saveWebPageScreenshot() {
-        String testUrl = "https://yy.haust.edu.cn/";
-        String webPageScreenshot = WebScreenshotUtils.saveWebPageScreenshot(testUrl);
-        Assertions.assertNotNull(webPageScreenshot);
-    }
-}
\ No newline at end of file
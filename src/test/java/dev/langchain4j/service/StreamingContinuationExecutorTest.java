@@ -0,0 +1,59 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingContinuationExecutorTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void reset() {
+        StreamingContinuationExecutor.configure(null, null);
+        StreamingContinuationExecutor.configureParallelTools(null);
+        executor.shutdown();
+    }
+
+    private static ToolExecutionRequest request(String id, String path) {
+        return ToolExecutionRequest.builder().id(id).name("writeFile").arguments(path).build();
+    }
+
+    @Test
+    void resultsKeepOrderAndSamePathIsSerialised() {
+        StreamingContinuationExecutor.configure(executor, UnaryOperator::identity);
+        StreamingContinuationExecutor.configureParallelTools(ToolExecutionRequest::arguments);
+        List<ToolExecutionRequest> requests = List.of(
+                request("1", "a.vue"), request("2", "b.vue"), request("3", "a.vue"), request("4", "c.vue"));
+        List<String> executionOrder = Collections.synchronizedList(new ArrayList<>());
+        List<String> results = StreamingContinuationExecutor.executeToolsInParallel(requests, req -> {
+            executionOrder.add(req.id());
+            return "done " + req.id();
+        }, UnaryOperator.identity());
+        assertEquals(List.of("done 1", "done 2", "done 3", "done 4"), results);
+        assertTrue(executionOrder.indexOf("1") < executionOrder.indexOf("3"));
+    }
+
+    @Test
+    void requestWithoutConflictKeyFallsBackToSequential() {
+        StreamingContinuationExecutor.configure(executor, UnaryOperator::identity);
+        StreamingContinuationExecutor.configureParallelTools(req -> "exit".equals(req.arguments()) ? null : req.arguments());
+        List<ToolExecutionRequest> requests = List.of(request("1", "a.vue"), request("2", "exit"));
+        assertNull(StreamingContinuationExecutor.executeToolsInParallel(requests, req -> "", UnaryOperator.identity()));
+    }
+
+    @Test
+    void disabledByDefault() {
+        List<ToolExecutionRequest> requests = List.of(request("1", "a.vue"), request("2", "b.vue"));
+        assertNull(StreamingContinuationExecutor.executeToolsInParallel(requests, req -> "", UnaryOperator.identity()));
+    }
+}